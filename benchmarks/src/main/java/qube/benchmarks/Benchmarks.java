@@ -0,0 +1,34 @@
+package qube.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs every benchmark once per thread count, with allocation rates reported by the GC profiler.
+ *
+ * <p>Usual JMH options are passed through, so {@code -p dimensions=3} or a benchmark pattern narrows the run. Thread
+ * counts are taken from {@code -Dthreads=1,2,4} and default to one and every available processor.</p>
+ */
+public final class Benchmarks
+{
+    private Benchmarks() {}
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException
+    {
+        final CommandLineOptions options = new CommandLineOptions(args);
+        final String threads = System.getProperty("threads", "1," + Runtime.getRuntime().availableProcessors());
+
+        for(String count : threads.split(","))
+        {
+            new Runner(new OptionsBuilder()
+                    .parent(options)
+                    .threads(Integer.parseInt(count.trim()))
+                    .addProfiler(GCProfiler.class)
+                    .build()).run();
+        }
+    }
+}
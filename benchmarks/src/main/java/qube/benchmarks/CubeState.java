@@ -0,0 +1,62 @@
+package qube.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import qube.Cube;
+import qube.Side;
+import qube.algorithm3x3.ICube;
+
+import java.util.Random;
+
+/**
+ * Unanimated cube owned by a single benchmark thread, scrambled the same way on every run.
+ */
+@State(Scope.Thread)
+public class CubeState
+{
+    private static final Side[] SIDES = Side.values();
+
+    @Param({ "3", "5", "9" })
+    public int dimensions;
+
+    public Cube cube;
+    private int turn_;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        cube = new Cube(dimensions, false);
+        scramble(cube, dimensions, 1);
+    }
+
+    /**
+     * Gets the next side to turn, cycling through every side.
+     *
+     * @return  Side to turn.
+     */
+    public Side next()
+    {
+        turn_ = (turn_ + 1) % SIDES.length;
+        return SIDES[turn_];
+    }
+
+    /**
+     * Scrambles a cube with a fixed sequence of turns.
+     *
+     * @param   cube        Cube to scramble.
+     * @param   dimensions  Dimensions of the cube.
+     * @param   seed        Seed of the sequence.
+     */
+    static void scramble(ICube cube, int dimensions, long seed)
+    {
+        Random random = new Random(seed);
+        for(int i = 0; i < 200; ++i)
+        {
+            cube.rotateNow(SIDES[random.nextInt(SIDES.length)], random.nextBoolean(), 1,
+                    random.nextInt((dimensions + 1) / 2));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package qube.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import qube.Color;
+import qube.Face;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rotation of the stickers of a single face, without the strips of its neighbors.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FaceBenchmark
+{
+    @Param({ "3", "5", "9" })
+    public int dimensions;
+
+    private Face face_;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        face_ = new Face(dimensions, Color.WHITE);
+    }
+
+    @Benchmark
+    public Face rotate()
+    {
+        face_.rotate(false);
+        return face_;
+    }
+}
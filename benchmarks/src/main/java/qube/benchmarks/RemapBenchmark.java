@@ -0,0 +1,71 @@
+package qube.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import qube.LocationSpace;
+import qube.Side;
+import qube.algorithm3x3.ICube;
+import qube.algorithm3x3.Location;
+import qube.algorithm3x3.SearchQuery;
+import qube.algorithm3x3.SideRemappedCube;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of {@link SideRemappedCube}, measured against the same calls on the cube it wraps.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RemapBenchmark
+{
+    /**
+     * Cube of one thread seen with its back side rebased to the left, as the last layer steps do.
+     */
+    @State(Scope.Thread)
+    public static class Remapped
+    {
+        public ICube cube;
+        public SearchQuery edges;
+
+        @Setup(Level.Trial)
+        public void setup(CubeState state)
+        {
+            cube = SideRemappedCube.bind(state.cube).rebase(Side.BACK, Side.LEFT).build();
+            edges = SearchQuery.select().minor(Location.Minor.EDGE).notOn(Side.DOWN, Side.UP).build();
+        }
+    }
+
+    @Benchmark
+    public Future<Void> directTurn(CubeState state)
+    {
+        return state.cube.rotate(state.next(), false, 1, 0);
+    }
+
+    @Benchmark
+    public Future<Void> remappedTurn(CubeState state, Remapped remapped)
+    {
+        return remapped.cube.rotate(state.next(), false, 1, 0);
+    }
+
+    @Benchmark
+    public Object bind(CubeState state)
+    {
+        return SideRemappedCube.bind(state.cube).rebase(Side.BACK, Side.LEFT).build();
+    }
+
+    @Benchmark
+    public LocationSpace directFind(CubeState state, Remapped remapped) throws ExecutionException, InterruptedException
+    {
+        return state.cube.find(remapped.edges).get();
+    }
+
+    @Benchmark
+    public LocationSpace remappedFind(Remapped remapped) throws ExecutionException, InterruptedException
+    {
+        return remapped.cube.find(remapped.edges).get();
+    }
+}
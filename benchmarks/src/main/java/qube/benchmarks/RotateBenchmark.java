@@ -0,0 +1,35 @@
+package qube.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns of an unanimated {@link qube.Cube}, cycling through every side.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RotateBenchmark
+{
+    @Benchmark
+    public Future<Void> faceTurn(CubeState state)
+    {
+        return state.cube.rotate(state.next(), false, 1, 0);
+    }
+
+    @Benchmark
+    public Future<Void> sliceTurn(CubeState state)
+    {
+        return state.cube.rotate(state.next(), false, 1, 1);
+    }
+
+    @Benchmark
+    public Future<Void> sharedFaceTurn(SharedCubeState state)
+    {
+        return state.cube.rotate(state.next(), false, 1, 0);
+    }
+}
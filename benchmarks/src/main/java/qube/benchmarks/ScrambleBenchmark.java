@@ -0,0 +1,23 @@
+package qube.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link qube.Cube#scramble} with up to a hundred turns of any layer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScrambleBenchmark
+{
+    @Benchmark
+    public Object scramble(CubeState state)
+    {
+        state.cube.scramble(0, 100, state.dimensions);
+        return state.cube;
+    }
+}
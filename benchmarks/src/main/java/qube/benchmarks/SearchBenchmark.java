@@ -0,0 +1,88 @@
+package qube.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import qube.Color;
+import qube.LocationSpace;
+import qube.Side;
+import qube.algorithm3x3.IFace;
+import qube.algorithm3x3.ISearch;
+import qube.algorithm3x3.Location;
+import qube.algorithm3x3.SearchQuery;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Searches of a scrambled cube, shaped like those {@link qube.algorithm3x3.Algorithm3x3} makes each step.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark
+{
+    /**
+     * Queries built against the cube of one thread.
+     */
+    @State(Scope.Thread)
+    public static class Queries
+    {
+        public SearchQuery daisy;
+        public SearchQuery corners;
+        public SearchQuery sideEdges;
+        public ISearch misplaced;
+
+        @Setup(Level.Trial)
+        public void setup(CubeState state)
+        {
+            final Color white = state.cube.getFace(Side.UP).getColor(Location.CENTER);
+            final Color yellow = state.cube.getFace(Side.DOWN).getColor(Location.CENTER);
+
+            misplaced = (side, location, color) ->
+            {
+                IFace face = state.cube.getFace(side);
+                return color == white && face.getColor(location) != face.getColor(Location.CENTER);
+            };
+
+            daisy = SearchQuery.select().color(white).minor(Location.Minor.EDGE).notOn(Side.DOWN).build();
+            corners = SearchQuery.select().color(white).minor(Location.Minor.CORNER).where(misplaced).build();
+            sideEdges = SearchQuery.select().on(Side.DOWN).minor(Location.Minor.EDGE)
+                    .notColor(yellow).withoutNeighbor(yellow).build();
+        }
+    }
+
+    @Benchmark
+    public LocationSpace findDaisy(CubeState state, Queries queries) throws ExecutionException, InterruptedException
+    {
+        return state.cube.find(queries.daisy).get();
+    }
+
+    @Benchmark
+    public LocationSpace findCorner(CubeState state, Queries queries) throws ExecutionException, InterruptedException
+    {
+        return state.cube.find(queries.corners).get();
+    }
+
+    @Benchmark
+    public LocationSpace findPredicate(CubeState state, Queries queries)
+            throws ExecutionException, InterruptedException
+    {
+        return state.cube.find(queries.misplaced).get();
+    }
+
+    @Benchmark
+    public List<LocationSpace> findAllSideEdges(CubeState state, Queries queries)
+            throws ExecutionException, InterruptedException
+    {
+        return state.cube.findAll(queries.sideEdges).get();
+    }
+
+    @Benchmark
+    public List<LocationSpace> findAllPredicate(CubeState state, Queries queries)
+            throws ExecutionException, InterruptedException
+    {
+        return state.cube.findAll(queries.misplaced).get();
+    }
+}
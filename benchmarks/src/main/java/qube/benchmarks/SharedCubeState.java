@@ -0,0 +1,12 @@
+package qube.benchmarks;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cube turned by every benchmark thread at once, to measure contention on its lock.
+ */
+@State(Scope.Benchmark)
+public class SharedCubeState extends CubeState
+{
+}
@@ -0,0 +1,34 @@
+package qube.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import qube.Cube;
+import qube.algorithm3x3.Algorithm3x3;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full solve of a scrambled, unanimated 3x3 cube, including the scramble.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SolveBenchmark
+{
+    @Param({ "CFOP", "BEGINNER" })
+    public Algorithm3x3.Method method;
+
+    private long seed_;
+
+    @Benchmark
+    public boolean solve()
+    {
+        Cube cube = new Cube(3, false);
+        CubeState.scramble(cube, 3, ++seed_);
+
+        new Algorithm3x3(cube, method).run();
+        return cube.isComplete();
+    }
+}
@@ -3,81 +3,174 @@ package qube;
 import processing.core.PApplet;
 import qube.algorithm3x3.Location;
 
-import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
+/**
+ * Plays back turns of a cube after they have been applied.
+ *
+ * <p>Turns are queued from any thread along with the state they lead to, and played one after another on the draw
+ * thread at a fixed angular speed, independent of the frame rate. Everything but {@link #enqueue} and {@link #jump}
+ * must be called from the draw thread.</p>
+ */
 public class Animator
 {
     private static final Location[] LOCATION_ORDER = { Location.LEFT, Location.TOP, Location.RIGHT, Location.BOTTOM };
 
     private final Cube cube_;
     private final float speed_;
-    private boolean rotating_;
-    private Side side_;
+    private final Queue<Entry> pending_ = new ConcurrentLinkedQueue<>();
+    private Entry current_;
+    private CubeSnapshot frame_;
+    private long time_;
     private int ccw_;
-    private int offset_;
     private float progress_;
     private final int[][] blacklist_ = new int[4][];
     private final Color[][] colors_ = new Color[4][];
-    private final Object mutex = new Object();
+    private final BitSet[] hidden_ = new BitSet[6];
 
-    public Animator(Cube cube, float speed)
+    /**
+     * Constructs an animator.
+     *
+     * @param   cube    Cube to animate.
+     * @param   frame   State of the cube before any queued turn.
+     * @param   speed   Speed of turns in degrees per second.
+     */
+    public Animator(Cube cube, CubeSnapshot frame, float speed)
     {
         cube_ = cube;
+        frame_ = frame;
         speed_ = speed;
+
+        for(int i = 0; i < hidden_.length; ++i)
+        {
+            hidden_[i] = new BitSet();
+        }
     }
 
     /**
-     * Checks if the index on the side should be drawn.
+     * Queues a turn that has already been applied.
      *
-     * @param   side    Side of index.
-     * @param   index   Index on side.
+     * @param   side    Side rotated.
+     * @param   ccw     Whether it was rotated counterclockwise.
+     * @param   offset  Offset from side.
+     * @param   after   State of the cube after the turn.
      *
-     * @return          Whether the side and index are blacklisted.
+     * @return          Future completing once the turn has been played.
      */
-    public boolean isBlacklisted(Side side, int index)
+    public CompletableFuture<Void> enqueue(Side side, boolean ccw, int offset, CubeSnapshot after)
     {
-        if(!rotating_)
-        {
-            return false;
-        }
+        Entry entry = new Entry(side, ccw, offset, after);
+        pending_.add(entry);
 
-        for(int i = 0; i < 4; ++i)
+        return entry.future_;
+    }
+
+    /**
+     * Queues a change of state that is shown without playing a turn, such as a scramble.
+     *
+     * @param   after   State of the cube after the change.
+     *
+     * @return          Future completing once the change is shown.
+     */
+    public CompletableFuture<Void> jump(CubeSnapshot after)
+    {
+        return enqueue(null, false, 0, after);
+    }
+
+    /**
+     * Advances playback to the current time.
+     *
+     * <p>Called once per frame, before drawing any side.</p>
+     */
+    public void advance()
+    {
+        final long now = System.nanoTime();
+        float degrees = current_ == null ? 0 : (now - time_) * 1e-9f * speed_;
+        time_ = now;
+
+        while(true)
         {
-            if(side == Location.getEdgeOuterSide(side_, LOCATION_ORDER[i]))
+            if(current_ == null)
             {
-                return Arrays.stream(blacklist_[i]).anyMatch(n -> n == index);
+                current_ = pending_.poll();
+                if(current_ == null)
+                {
+                    return;
+                }
+
+                start(current_);
             }
-        }
 
-        return false;
+            if(current_.side_ != null && progress_ + degrees < 90)
+            {
+                progress_ += degrees;
+                return;
+            }
+
+            degrees -= current_.side_ != null ? 90 - progress_ : 0;  // Leftover time carries on to the next turn.
+
+            frame_ = current_.after_;
+            current_.future_.complete(null);
+            current_ = null;
+
+            for(BitSet hidden : hidden_)
+            {
+                hidden.clear();
+            }
+        }
     }
 
     /**
-     * Applies rotation for side.
+     * Prepares to play a turn from the current frame.
      *
-     * @param   side    Side to rotate.
-     * @param   ccw     Counterclockwise.
-     * @param   offset  Offset from side.
+     * @param   entry   Turn to play.
      */
-    public void rotate(Side side, boolean ccw, int offset)
+    private void start(Entry entry)
     {
-        synchronized(mutex)
+        progress_ = 0;
+
+        if(entry.side_ == null)
         {
-            rotating_ = true;
-            side_ = side;
-            ccw_ = ccw ? -1 : 1;
-            offset_ = offset;
-            progress_ = 0;
+            return;
+        }
 
-            for(int i = 0; i < 4; ++i)
+        ccw_ = entry.ccw_ ? -1 : 1;
+
+        final int area = cube_.getDimensions() * cube_.getDimensions();
+        for(int i = 0; i < 4; ++i)
+        {
+            Side outer = Location.getEdgeOuterSide(entry.side_, LOCATION_ORDER[i]);
+
+            blacklist_[i] = getRelativeEdge(entry.side_, LOCATION_ORDER[i], entry.offset_);
+            colors_[i] = new Color[blacklist_[i].length];
+
+            for(int j = 0; j < blacklist_[i].length; ++j)
             {
-                Face face = (Face)cube_.getFace(Location.getEdgeOuterSide(side_, LOCATION_ORDER[i]));
-                blacklist_[i] = getRelativeEdge(side_, LOCATION_ORDER[i], offset_);
-                colors_[i] = face.getColors(blacklist_[i]);
+                colors_[i][j] = frame_.getColor(outer.ordinal() * area + blacklist_[i][j]);
+                hidden_[outer.ordinal()].set(blacklist_[i][j]);
             }
         }
     }
 
+    /**
+     * Gets the stickers of a side drawn by the turn being played instead of by the side.
+     *
+     * @param   side    Side to check.
+     *
+     * @return          Indices on the side to skip, not to be modified.
+     */
+    public BitSet getHidden(Side side) { return hidden_[side.ordinal()]; }
+
+    /**
+     * Gets the state to draw, which lags behind the cube while turns are playing.
+     *
+     * @return  State before the turn being played.
+     */
+    public CubeSnapshot getFrame() { return frame_; }
+
     /**
      * Gets the colors on the specified edge relative to the current side.
      *
@@ -157,64 +250,70 @@ public class Animator
      */
     public void apply(PApplet canvas, Side side)
     {
-        synchronized(mutex)
+        final float tileSize = (float)Face.TARGET_FACE_SIDE / cube_.getDimensions();
+        if(current_ != null && side == current_.side_)
         {
-            if(progress_ > 90)
-            {
-                rotating_ = false;
-                Arrays.stream(blacklist_).forEach(n -> Arrays.fill(n, -1));
-
-                synchronized(this)
-                {
-                    notify();
-                }
-            }
+            final int offset = current_.offset_;
 
-            final float tileSize = (float)Face.TARGET_FACE_SIDE / cube_.getDimensions();
-            if(rotating_ && side == side_)
+            if(offset != 0)
             {
-                if(offset_ != 0)
-                {
-                    canvas.pushMatrix();
-                }
-
-                canvas.rotateZ(PApplet.radians(progress_) * ccw_);
+                canvas.pushMatrix();
+            }
 
-                final float[] xyz = { 0, 90, 0, -90, 0, -90, 0, -90, 0, 90, 0, -90 };
-                final float[] offsets = { 0, -tileSize, -tileSize, 0 };
+            canvas.rotateZ(PApplet.radians(progress_) * ccw_);
 
-                for(int i = 0; i < 4; ++i)
-                {
-                    canvas.pushMatrix();
+            final float[] xyz = { 0, 90, 0, -90, 0, -90, 0, -90, 0, 90, 0, -90 };
+            final float[] offsets = { 0, -tileSize, -tileSize, 0 };
 
-                    int move = cube_.getDimensions() / 2 - offset_ - 1;
-                    canvas.translate(0, 0, tileSize * move);
-
-                    canvas.rotateX(PApplet.radians(xyz[i * 3]));
-                    canvas.rotateY(PApplet.radians(xyz[i * 3 + 1]));
-                    canvas.rotateZ(PApplet.radians(xyz[i * 3 + 2]));
+            for(int i = 0; i < 4; ++i)
+            {
+                canvas.pushMatrix();
 
-                    canvas.translate(0, 0, -Face.TARGET_FACE_SIDE * 0.5f);
-                    canvas.stroke(10);
+                int move = cube_.getDimensions() / 2 - offset - 1;
+                canvas.translate(0, 0, tileSize * move);
 
-                    canvas.translate(0, -Face.TARGET_FACE_SIDE * 0.5f);
+                canvas.rotateX(PApplet.radians(xyz[i * 3]));
+                canvas.rotateY(PApplet.radians(xyz[i * 3 + 1]));
+                canvas.rotateZ(PApplet.radians(xyz[i * 3 + 2]));
 
-                    for(int j = 0; j < cube_.getDimensions(); ++j)
-                    {
-                        colors_[i][j].fill(canvas);
-                        canvas.rect(offsets[i], j * tileSize, tileSize, tileSize);
-                    }
+                canvas.translate(0, 0, -Face.TARGET_FACE_SIDE * 0.5f);
+                canvas.stroke(10);
 
-                    canvas.popMatrix();
-                }
+                canvas.translate(0, -Face.TARGET_FACE_SIDE * 0.5f);
 
-                if(offset_ != 0)
+                for(int j = 0; j < cube_.getDimensions(); ++j)
                 {
-                    canvas.popMatrix();
+                    colors_[i][j].fill(canvas);
+                    canvas.rect(offsets[i], j * tileSize, tileSize, tileSize);
                 }
 
-                progress_ += speed_;
+                canvas.popMatrix();
+            }
+
+            if(offset != 0)
+            {
+                canvas.popMatrix();
             }
         }
     }
+
+    /**
+     * Turn waiting to be played.
+     */
+    private static class Entry
+    {
+        private final Side side_;
+        private final boolean ccw_;
+        private final int offset_;
+        private final CubeSnapshot after_;
+        private final CompletableFuture<Void> future_ = new CompletableFuture<>();
+
+        private Entry(Side side, boolean ccw, int offset, CubeSnapshot after)
+        {
+            side_ = side;
+            ccw_ = ccw;
+            offset_ = offset;
+            after_ = after;
+        }
+    }
 }
@@ -0,0 +1,184 @@
+package qube;
+
+import qube.algorithm3x3.Algorithm3x3;
+import qube.algorithm3x3.ICube;
+import qube.algorithm3x3.RecordingCube;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Solves a batch of cubes in parallel and reports latency percentiles of every phase of {@link Algorithm3x3}.
+ *
+ * <p>Unlike {@link StressBox}, nothing is printed per cube. Every solve runs on its worker thread and records the time
+ * and moves of each phase into shared {@link Histogram}s, printed once the batch is done along with the number of
+ * solves per second.</p>
+ */
+public class BatchSolver implements Runnable
+{
+    private static final double[] PERCENTILES = { 50, 90, 99 };
+
+    private final int count_;
+    private final int threads_;
+    private final Supplier<ICube> supplier_;
+    private final Algorithm3x3.Method method_;
+
+    private final Map<Algorithm3x3.Phase, Histogram> times_ = new EnumMap<>(Algorithm3x3.Phase.class);
+    private final Map<Algorithm3x3.Phase, Histogram> moves_ = new EnumMap<>(Algorithm3x3.Phase.class);
+    private final Histogram total_ = new Histogram();
+    private final AtomicInteger solved_ = new AtomicInteger();
+
+    /**
+     * Creates a batch.
+     *
+     * @param   count       Number of cubes to solve.
+     * @param   threads     Number of cubes solved at once.
+     * @param   supplier    Supplier that provides new cubes, called from the worker threads.
+     * @param   method      Way of solving the last layer.
+     */
+    private BatchSolver(int count, int threads, Supplier<ICube> supplier, Algorithm3x3.Method method)
+    {
+        if(count < 1 || threads < 1)
+        {
+            throw new IllegalArgumentException("Count and threads must be positive");
+        }
+
+        count_ = count;
+        threads_ = threads;
+        supplier_ = supplier;
+        method_ = method;
+
+        for(Algorithm3x3.Phase phase : Algorithm3x3.Phase.values())
+        {
+            times_.put(phase, new Histogram());
+            moves_.put(phase, new Histogram());
+        }
+    }
+
+    /**
+     * Solves a batch of cubes with each method in turn, printing a report for each.
+     *
+     * <p>Only {@link Algorithm3x3.Method#BEGINNER} goes through every phase up to
+     * {@link Algorithm3x3.Phase#HEADLIGHTS}, so pass it to see them all.</p>
+     *
+     * @param   count       Number of cubes to solve per method.
+     * @param   threads     Number of cubes solved at once.
+     * @param   supplier    Supplier that provides new scrambled cubes, called from the worker threads.
+     * @param   methods     Ways of solving the last layer.
+     *
+     * @return              Asynchronous future.
+     */
+    public static Future<Void> test(int count, int threads, Supplier<ICube> supplier, Algorithm3x3.Method... methods)
+    {
+        return CompletableFuture.runAsync(() ->
+        {
+            for(Algorithm3x3.Method method : methods)
+            {
+                new BatchSolver(count, threads, supplier, method).run();
+            }
+        });
+    }
+
+    /**
+     * Solves one cube, recording each phase.
+     */
+    private void solve()
+    {
+        RecordingCube cube = new RecordingCube(supplier_.get());
+        final int[] made = new int[1];
+
+        final long start = System.nanoTime();
+
+        new Algorithm3x3(cube, method_, (phase, nanos) ->
+        {
+            final int moves = cube.getMoveCount();
+
+            times_.get(phase).record(nanos);
+            moves_.get(phase).record(moves - made[0]);
+            made[0] = moves;
+        }).run();
+
+        total_.record(System.nanoTime() - start);
+
+        if(cube.isComplete())
+        {
+            solved_.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void run()
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(threads_);
+        CountDownLatch latch = new CountDownLatch(count_);
+
+        final long start = System.nanoTime();
+
+        for(int i = 0; i < count_; ++i)
+        {
+            executor.execute(() ->
+            {
+                try
+                {
+                    solve();
+                }
+                finally
+                {
+                    latch.countDown();
+                }
+            });
+        }
+
+        try
+        {
+            latch.await();
+        }
+        catch(InterruptedException e)
+        {
+            e.printStackTrace();
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        final double seconds = (System.nanoTime() - start) * 0.000000001;
+
+        System.out.format("Method: %s%n", method_);
+        System.out.format("%-18s %9s %9s %9s %9s %7s%n", "Phase (ms)", "p50", "p90", "p99", "max", "moves");
+        for(Algorithm3x3.Phase phase : Algorithm3x3.Phase.values())
+        {
+            if(times_.get(phase).getCount() != 0)
+            {
+                print(phase.name(), times_.get(phase), moves_.get(phase).getMean());
+            }
+        }
+
+        print("TOTAL", total_, Double.NaN);
+
+        System.out.format("Cubes solved: (%d/%d) on %d threads in %.3f seconds, %.1f solves per second.%n",
+                solved_.get(), count_, threads_, seconds, count_ / seconds);
+    }
+
+    /**
+     * Prints a row of the report.
+     *
+     * @param   name    Name of the row.
+     * @param   times   Nanoseconds taken.
+     * @param   moves   Mean moves made, or {@code NaN} if not shown.
+     */
+    private static void print(String name, Histogram times, double moves)
+    {
+        System.out.format("%-18s", name);
+        for(double percentile : PERCENTILES)
+        {
+            System.out.format(" %9.3f", times.getPercentile(percentile) * 0.000001);
+        }
+
+        System.out.format(" %9.3f", times.getMax() * 0.000001);
+        System.out.println(Double.isNaN(moves) ? "" : String.format(" %7.1f", moves));
+    }
+}
@@ -32,4 +32,14 @@ public enum Color
     {
         canvas.fill(r_, g_, b_);
     }
+
+    /**
+     * Gets the color as packed RGB.
+     *
+     * @return  Red, green and blue in bits 16-23, 8-15 and 0-7.
+     */
+    public int getRGB()
+    {
+        return r_ << 16 | g_ << 8 | b_;
+    }
 }
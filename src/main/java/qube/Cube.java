@@ -6,20 +6,56 @@ import qube.algorithm3x3.*;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
 
 public class Cube implements ICube
 {
-    private final Animator animator_ = new Animator(this, 50);
+    private static final Side[] SIDES = Side.values();
+    private static final Location[] LOCATIONS = Location.values();
+    private static final BitSet NONE_HIDDEN = new BitSet();
+    private static final long[] SIDE_SLOTS = new long[SIDES.length];
+    private static final long[] MINOR_SLOTS = new long[Location.Minor.values().length];
+    private static final long[] NEIGHBOR_SLOTS = new long[SIDES.length * LOCATIONS.length];
+
+    static
+    {
+        for(int slot = 0; slot < NEIGHBOR_SLOTS.length; ++slot)
+        {
+            Side side = SIDES[slot / LOCATIONS.length];
+            Location location = LOCATIONS[slot % LOCATIONS.length];
+
+            SIDE_SLOTS[side.ordinal()] |= 1L << slot;
+            MINOR_SLOTS[location.getMinor().ordinal()] |= 1L << slot;
+
+            for(LocationSpace neighbor : SearchQuery.getNeighbors(side, location))
+            {
+                NEIGHBOR_SLOTS[slot] |= 1L << (neighbor.getSide().ordinal() * LOCATIONS.length
+                        + neighbor.getLocation().ordinal());
+            }
+        }
+    }
+
+    private final Animator animator_;
     private final int dimensions_;
     private final boolean animated_;
+    private final Color[] stickers_;
     private final Face[] faces_;
+    private final MoveTable moves_;
     private final int tileSize_;
     private final Object mutex = new Object();
+    private final StateLock lock_ = new StateLock();
+    private CubeSnapshot queued_;   // Last state queued for playback, guarded by mutex. Unused unless animated.
+    private volatile long fingerprint_;
+    private final int[] slots_;
+    private final long[] colorSlots_ = new long[Color.values().length];
+    private final long[] touchedSlots_;
 
     /**
      * Constructs a cube with faces.
@@ -31,14 +67,36 @@ public class Cube implements ICube
     {
         dimensions_ = dimensions;
         animated_ = animated;
+        stickers_ = new Color[dimensions * dimensions * 6];
         faces_ = new Face[6];
+        moves_ = MoveTable.of(dimensions);
 
         Color[] colors = Color.values();
         for(int i = 0; i < 6; ++i)
         {
-            faces_[i] = new Face(dimensions, colors[i]);
+            Arrays.fill(stickers_, i * dimensions * dimensions, (i + 1) * dimensions * dimensions, colors[i]);
+            faces_[i] = new Face(dimensions, stickers_, i * dimensions * dimensions, lock_);
         }
 
+        for(int i = 0; i < stickers_.length; ++i)
+        {
+            fingerprint_ ^= Zobrist.key(i, stickers_[i].ordinal());
+        }
+
+        // Every named location of every side is a slot, indexed by color so searches can skip the rest.
+        slots_ = new int[SIDES.length * LOCATIONS.length];
+        for(int slot = 0; slot < slots_.length; ++slot)
+        {
+            slots_[slot] = slot / LOCATIONS.length * dimensions * dimensions
+                    + Face.retrieveLocationIndex(dimensions, LOCATIONS[slot % LOCATIONS.length]);
+        }
+
+        touchedSlots_ = new long[6 * dimensions];
+        Arrays.fill(touchedSlots_, -1);
+        updateSlots(-1);
+
+        queued_ = animated ? CubeSnapshot.solved(dimensions) : null;
+        animator_ = new Animator(this, queued_, 3000);
         tileSize_ = Face.TARGET_FACE_SIDE / dimensions;
     }
 
@@ -53,13 +111,21 @@ public class Cube implements ICube
     {
         int num = (int)(Math.random() * max - min);
 
-        for(int i = 0; i < num; ++i)
+        synchronized(mutex)
         {
-            Side side = Side.values()[(int)(Math.random() * 6)];
-            int offset = (int)(Math.random() * Math.min(maxOffset, dimensions_));
-            boolean ccw = (int)(Math.random() * 2) == 1;
+            for(int i = 0; i < num; ++i)
+            {
+                Side side = Side.values()[(int)(Math.random() * 6)];
+                int offset = (int)(Math.random() * Math.min(maxOffset, dimensions_));
+                boolean ccw = (int)(Math.random() * 2) == 1;
 
-            rotate(side, offset, ccw);
+                rotate(side, offset, ccw);
+            }
+
+            if(animated_)   // Shown all at once rather than played.
+            {
+                animator_.jump(queued_ = snapshot());
+            }
         }
     }
 
@@ -70,8 +136,19 @@ public class Cube implements ICube
      */
     public void draw(PApplet canvas)
     {
+        if(animated_)
+        {
+            animator_.advance();
+        }
+
+        // Every side is drawn from the same state, which trails the cube while turns are being animated.
+        final CubeSnapshot frame = animated_ ? animator_.getFrame() : snapshot();
+
         for(Side side : Side.values())
         {
+            final int start = side.ordinal() * dimensions_ * dimensions_;
+            final IntFunction<Color> colors = n -> frame.getColor(start + n);
+
             PVector pos = side.getPosition();
             PVector rot = side.getRotation();
 
@@ -84,11 +161,11 @@ public class Cube implements ICube
             if(animated_)
             {
                 animator_.apply(canvas, side);
-                faces_[side.ordinal()].draw(canvas, n -> !animator_.isBlacklisted(side, n));
+                faces_[side.ordinal()].draw(canvas, colors, animator_.getHidden(side));
             }
             else
             {
-                faces_[side.ordinal()].draw(canvas, n -> true);
+                faces_[side.ordinal()].draw(canvas, colors, NONE_HIDDEN);
             }
 
             canvas.popMatrix();
@@ -98,32 +175,100 @@ public class Cube implements ICube
     @Override
     public Future<Void> rotate(Side side, boolean ccw, int count, int offset)
     {
-        return CompletableFuture.runAsync(() ->
+        synchronized(mutex)
         {
-            synchronized(mutex)
-            {
-                for(int i = 0; i < count; ++i)
-                {
-                    if(animated_)
-                    {
-                        animator_.rotate(side, ccw, offset);
-
-                        synchronized(animator_)
-                        {
-                            try
-                            {
-                                animator_.wait();
-                            } catch(InterruptedException e)
-                            {
-                                e.printStackTrace();
-                            }
-                        }
-                    }
+            return played(turn(side, ccw, count, offset));
+        }
+    }
 
-                    rotate(side, offset, ccw);
-                }
+    @Override
+    public void rotateNow(Side side, boolean ccw, int count, int offset)
+    {
+        synchronized(mutex)
+        {
+            turn(side, ccw, count, offset);
+        }
+    }
+
+    @Override
+    public Future<Void> rotate(Move... moves)
+    {
+        synchronized(mutex)
+        {
+            return played(batch(moves));
+        }
+    }
+
+    @Override
+    public void rotateNow(Move... moves)
+    {
+        synchronized(mutex)
+        {
+            batch(moves);
+        }
+    }
+
+    /**
+     * Rotates the cube by a sequence of moves.
+     *
+     * <p>Must be called while holding {@code mutex}.</p>
+     *
+     * @param   moves   Moves to apply in order.
+     *
+     * @return          Future completing once the last move has been animated, or {@code null} if none are.
+     */
+    private CompletableFuture<Void> batch(Move... moves)
+    {
+        CompletableFuture<Void> played = null;
+        for(Move move : moves)
+        {
+            CompletableFuture<Void> last = turn(move.getSide(), move.isCcw(), move.getCount(), move.getOffset());
+            played = last != null ? last : played;
+        }
+
+        return played;
+    }
+
+    /**
+     * Gets a future for turns that may not be played.
+     *
+     * @param   played  Future of playback, or {@code null} if nothing is animated.
+     *
+     * @return          Future completing once played.
+     */
+    private static Future<Void> played(CompletableFuture<Void> played)
+    {
+        return played != null ? played : CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Rotates the cube, queueing each turn to be animated if needed.
+     *
+     * <p>Must be called while holding {@code mutex}.</p>
+     *
+     * @param   side    Side to rotate.
+     * @param   ccw     Whether to rotate counterclockwise.
+     * @param   count   Number of times to rotate.
+     * @param   offset  Offset from side.
+     *
+     * @return          Future completing once every turn has been animated, or {@code null} if none are.
+     */
+    private CompletableFuture<Void> turn(Side side, boolean ccw, int count, int offset)
+    {
+        CompletableFuture<Void> played = null;
+
+        for(int i = 0; i < count; ++i)
+        {
+            rotate(side, offset, ccw);
+
+            if(animated_)   // Playback needs the state after every quarter turn, nothing else does.
+            {
+                queued_ = queued_.apply(side, ccw, 1, offset);
+                played = animator_.enqueue(side, ccw, offset, queued_);
             }
-        });
+        }
+
+        return played;
     }
 
     @Override
@@ -132,29 +277,26 @@ public class Cube implements ICube
         final List<Side> sides = Arrays.stream(Side.values()).collect(Collectors.toList());
         final List<Location> locations = Arrays.stream(Location.values()).collect(Collectors.toList());
 
-        return CompletableFuture.supplyAsync(() ->
+        return CompletableFuture.supplyAsync(() -> lock_.read(() ->
         {
-            synchronized(mutex)
+            Collections.shuffle(sides);
+            for(Side side : sides)
             {
-                Collections.shuffle(sides);
-                for(Side side : sides)
-                {
-                    Face face = faces_[side.ordinal()];
+                Face face = faces_[side.ordinal()];
 
-                    Collections.shuffle(locations);
-                    for(Location location : locations)
+                Collections.shuffle(locations);
+                for(Location location : locations)
+                {
+                    Color color = face.getColor(location);
+                    if(search.test(side, location, color))
                     {
-                        Color color = face.getColor(location);
-                        if(search.test(side, location, color))
-                        {
-                            return new LocationSpace(side, location, color);
-                        }
+                        return new LocationSpace(side, location, color);
                     }
                 }
             }
 
             return null;
-        });
+        }));
     }
 
     @Override
@@ -163,106 +305,386 @@ public class Cube implements ICube
         final List<Side> sides = Arrays.stream(Side.values()).collect(Collectors.toList());
         final List<Location> locations = Arrays.stream(Location.values()).collect(Collectors.toList());
 
-        return CompletableFuture.supplyAsync(() ->
+        return CompletableFuture.supplyAsync(() -> lock_.read(() ->
         {
             List<LocationSpace> spaces = new ArrayList<>();
 
-            synchronized(mutex)
+            Collections.shuffle(sides);
+            for(Side side : sides)
             {
-                Collections.shuffle(sides);
-                for(Side side : sides)
-                {
-                    Face face = faces_[side.ordinal()];
+                Face face = faces_[side.ordinal()];
 
-                    Collections.shuffle(locations);
-                    for(Location location : locations)
+                Collections.shuffle(locations);
+                for(Location location : locations)
+                {
+                    Color color = face.getColor(location);
+                    if(search.test(side, location, color))
                     {
-                        Color color = face.getColor(location);
-                        if(search.test(side, location, color))
-                        {
-                            spaces.add(new LocationSpace(side, location, color));
-                        }
+                        spaces.add(new LocationSpace(side, location, color));
                     }
                 }
             }
 
             return spaces;
-        });
+        }));
+    }
+
+    @Override
+    public Future<LocationSpace> find(SearchQuery query)
+    {
+        return CompletableFuture.completedFuture(lock_.read(() ->
+        {
+            for(int slot : shuffleSlots(planSlots(query)))
+            {
+                Side side = SIDES[slot / LOCATIONS.length];
+                Location location = LOCATIONS[slot % LOCATIONS.length];
+                Color color = stickers_[slots_[slot]];
+
+                if(query.testResidual(side, location, color))
+                {
+                    return new LocationSpace(side, location, color);
+                }
+            }
+
+            return null;
+        }));
+    }
+
+    @Override
+    public Future<List<LocationSpace>> findAll(SearchQuery query)
+    {
+        return CompletableFuture.completedFuture(lock_.read(() ->
+        {
+            List<LocationSpace> spaces = new ArrayList<>();
+
+            for(int slot : shuffleSlots(planSlots(query)))
+            {
+                Side side = SIDES[slot / LOCATIONS.length];
+                Location location = LOCATIONS[slot % LOCATIONS.length];
+                Color color = stickers_[slots_[slot]];
+
+                if(query.testResidual(side, location, color))
+                {
+                    spaces.add(new LocationSpace(side, location, color));
+                }
+            }
+
+            return spaces;
+        }));
+    }
+
+    /**
+     * Narrows a query down to the slots passing every constraint but its residual search.
+     *
+     * <p>Must be called from within a read of {@code lock_}.</p>
+     *
+     * @param   query   Search query.
+     *
+     * @return          Bitmask of slots.
+     */
+    private long planSlots(SearchQuery query)
+    {
+        long sides = 0, minors = 0;
+
+        for(Side side : SIDES)
+        {
+            if((query.getSides() & 1 << side.ordinal()) != 0)
+            {
+                sides |= SIDE_SLOTS[side.ordinal()];
+            }
+        }
+
+        for(Location.Minor minor : Location.Minor.values())
+        {
+            if((query.getMinors() & 1 << minor.ordinal()) != 0)
+            {
+                minors |= MINOR_SLOTS[minor.ordinal()];
+            }
+        }
+
+        long slots = sides & minors & getColorSlots(query.getColors());
+
+        if(query.getNeighborColors() != 0)
+        {
+            slots &= getNeighborSlots(getColorSlots(query.getNeighborColors()));
+        }
+
+        if(query.getForbiddenNeighborColors() != 0)
+        {
+            slots &= ~getNeighborSlots(getColorSlots(query.getForbiddenNeighborColors()));
+        }
+
+        return slots;
     }
 
     /**
-     * Gets colors from indices automatically.
+     * Gets the slots holding any of a set of colors.
      *
-     * @param   face    Face to get from.
-     * @param   edge    Edge of indices.
-     * @param   reverse Whether to reverse the indices.
+     * @param   colors  Bitmask of color ordinals.
      *
-     * @return          Colors on edge.
+     * @return          Bitmask of slots.
      */
-    private Color[] getAutoIndices(Side face, Side edge, boolean reverse)
+    private long getColorSlots(int colors)
     {
-        Face f = faces_[face.ordinal()];
-        return f.getColors(f.retrieveIndices(edge, 0, reverse));
+        long slots = 0;
+        for(int i = 0; i < colorSlots_.length; ++i)
+        {
+            if((colors & 1 << i) != 0)
+            {
+                slots |= colorSlots_[i];
+            }
+        }
+
+        return slots;
     }
 
-    @Override
-    public Color[] getEdgeStrip(Side side, Side edge)
+    /**
+     * Gets the slots with a neighbor among a set of slots.
+     *
+     * @param   slots   Bitmask of slots.
+     *
+     * @return          Bitmask of their neighbors.
+     */
+    private static long getNeighborSlots(long slots)
+    {
+        long neighbors = 0;
+        for(; slots != 0; slots &= slots - 1)
+        {
+            neighbors |= NEIGHBOR_SLOTS[Long.numberOfTrailingZeros(slots)];
+        }
+
+        return neighbors;
+    }
+
+    /**
+     * Lists slots in a random order, as the other searches shuffle sides and locations.
+     *
+     * @param   slots   Bitmask of slots.
+     *
+     * @return          Shuffled slot indices.
+     */
+    private static int[] shuffleSlots(long slots)
+    {
+        int[] shuffled = new int[Long.bitCount(slots)];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        for(int i = 0; slots != 0; ++i, slots &= slots - 1)
+        {
+            int j = random.nextInt(i + 1);
+
+            shuffled[i] = shuffled[j];
+            shuffled[j] = Long.numberOfTrailingZeros(slots);
+        }
+
+        return shuffled;
+    }
+
+    /**
+     * Re-reads the colors of slots into the color index.
+     *
+     * <p>Must be called from within a write of {@code lock_}, or from the constructor.</p>
+     *
+     * @param   touched Bitmask of slots that may have changed color.
+     */
+    private void updateSlots(long touched)
+    {
+        touched &= (1L << slots_.length) - 1;
+
+        for(int i = 0; i < colorSlots_.length; ++i)
+        {
+            colorSlots_[i] &= ~touched;
+        }
+
+        for(long bits = touched; bits != 0; bits &= bits - 1)
+        {
+            final int slot = Long.numberOfTrailingZeros(bits);
+            colorSlots_[stickers_[slots_[slot]].ordinal()] |= 1L << slot;
+        }
+    }
+
+    /**
+     * Gets the slots moved by a turn, working them out on first use.
+     *
+     * @param   side    Side to rotate.
+     * @param   offset  Offset from side.
+     *
+     * @return          Bitmask of slots.
+     */
+    private long getTouchedSlots(Side side, int offset)
+    {
+        final int index = side.ordinal() * dimensions_ + offset;
+
+        if(touchedSlots_[index] == -1)
+        {
+            BitSet moved = new BitSet(stickers_.length);
+            for(int i : moves_.get(side, offset))
+            {
+                moved.set(i);
+            }
+
+            long touched = 0;
+            for(int slot = 0; slot < slots_.length; ++slot)
+            {
+                if(moved.get(slots_[slot]))
+                {
+                    touched |= 1L << slot;
+                }
+            }
+
+            touchedSlots_[index] = touched;
+        }
+
+        return touchedSlots_[index];
+    }
+
+    /**
+     * Gets indices of a face's edge automatically.
+     *
+     * @param   dimensions  Dimensions of the cube.
+     * @param   face        Face to get from.
+     * @param   edge        Edge of indices.
+     * @param   reverse     Whether to reverse the indices.
+     *
+     * @return              Indices on edge, offset by the face's position in the whole cube.
+     */
+    private static int[] getAutoIndices(int dimensions, Side face, Side edge, boolean reverse)
+    {
+        int[] indices = Face.retrieveIndices(dimensions, edge, 0, reverse);
+        int start = face.ordinal() * dimensions * dimensions;
+
+        for(int i = 0; i < indices.length; ++i)
+        {
+            indices[i] += start;
+        }
+
+        return indices;
+    }
+
+    /**
+     * Gets the indices of the edges around a side.
+     *
+     * <p>Indices span the whole cube, faces being laid out in {@link Side} order.</p>
+     *
+     * @param   dimensions  Dimensions of the cube.
+     * @param   side        Side to look around.
+     * @param   edge        Edge of side.
+     *
+     * @return              Indices on the edge.
+     */
+    static int[] getEdgeStripIndices(int dimensions, Side side, Side edge)
     {
         switch(side)
         {
         case FRONT:
             switch(edge)
             {
-            case UP: return getAutoIndices(Side.UP, Side.DOWN, false);
-            case RIGHT: return getAutoIndices(Side.RIGHT, Side.LEFT, false);
-            case DOWN: return getAutoIndices(Side.DOWN, Side.UP, false);
-            case LEFT: return getAutoIndices(Side.LEFT, Side.RIGHT, false);
+            case UP: return getAutoIndices(dimensions, Side.UP, Side.DOWN, false);
+            case RIGHT: return getAutoIndices(dimensions, Side.RIGHT, Side.LEFT, false);
+            case DOWN: return getAutoIndices(dimensions, Side.DOWN, Side.UP, false);
+            case LEFT: return getAutoIndices(dimensions, Side.LEFT, Side.RIGHT, false);
             }
         case BACK:
             switch(edge)
             {
-            case UP: return getAutoIndices(Side.UP, Side.UP, true);
-            case RIGHT: return getAutoIndices(Side.LEFT, Side.LEFT, false);
-            case DOWN: return getAutoIndices(Side.DOWN, Side.DOWN, true);
-            case LEFT: return getAutoIndices(Side.RIGHT, Side.RIGHT, false);
+            case UP: return getAutoIndices(dimensions, Side.UP, Side.UP, true);
+            case RIGHT: return getAutoIndices(dimensions, Side.LEFT, Side.LEFT, false);
+            case DOWN: return getAutoIndices(dimensions, Side.DOWN, Side.DOWN, true);
+            case LEFT: return getAutoIndices(dimensions, Side.RIGHT, Side.RIGHT, false);
             }
         case UP:
             switch(edge)
             {
-            case UP: return getAutoIndices(Side.BACK, Side.UP, true);
-            case RIGHT: return getAutoIndices(Side.RIGHT, Side.UP, true);
-            case DOWN: return getAutoIndices(Side.FRONT, Side.UP, false);
-            case LEFT: return getAutoIndices(Side.LEFT, Side.UP, false);
+            case UP: return getAutoIndices(dimensions, Side.BACK, Side.UP, true);
+            case RIGHT: return getAutoIndices(dimensions, Side.RIGHT, Side.UP, true);
+            case DOWN: return getAutoIndices(dimensions, Side.FRONT, Side.UP, false);
+            case LEFT: return getAutoIndices(dimensions, Side.LEFT, Side.UP, false);
             }
         case DOWN:
             switch(edge)
             {
-            case UP: return getAutoIndices(Side.FRONT, Side.DOWN, false);
-            case RIGHT: return getAutoIndices(Side.RIGHT, Side.DOWN, false);
-            case DOWN: return getAutoIndices(Side.BACK, Side.DOWN, true);
-            case LEFT: return getAutoIndices(Side.LEFT, Side.DOWN, true);
+            case UP: return getAutoIndices(dimensions, Side.FRONT, Side.DOWN, false);
+            case RIGHT: return getAutoIndices(dimensions, Side.RIGHT, Side.DOWN, false);
+            case DOWN: return getAutoIndices(dimensions, Side.BACK, Side.DOWN, true);
+            case LEFT: return getAutoIndices(dimensions, Side.LEFT, Side.DOWN, true);
             }
         case RIGHT:
             switch(edge)
             {
-            case UP: return getAutoIndices(Side.UP, Side.RIGHT, true);
-            case RIGHT: return getAutoIndices(Side.BACK, Side.LEFT, false);
-            case DOWN: return getAutoIndices(Side.DOWN, Side.RIGHT, true);
-            case LEFT: return getAutoIndices(Side.FRONT, Side.RIGHT, false);
+            case UP: return getAutoIndices(dimensions, Side.UP, Side.RIGHT, true);
+            case RIGHT: return getAutoIndices(dimensions, Side.BACK, Side.LEFT, false);
+            case DOWN: return getAutoIndices(dimensions, Side.DOWN, Side.RIGHT, true);
+            case LEFT: return getAutoIndices(dimensions, Side.FRONT, Side.RIGHT, false);
             }
         case LEFT:
             switch(edge)
             {
-            case UP: return getAutoIndices(Side.UP, Side.LEFT, false);
-            case RIGHT: return getAutoIndices(Side.FRONT, Side.LEFT, false);
-            case DOWN: return getAutoIndices(Side.DOWN, Side.LEFT, true);
-            case LEFT: return getAutoIndices(Side.BACK, Side.RIGHT, false);
+            case UP: return getAutoIndices(dimensions, Side.UP, Side.LEFT, false);
+            case RIGHT: return getAutoIndices(dimensions, Side.FRONT, Side.LEFT, false);
+            case DOWN: return getAutoIndices(dimensions, Side.DOWN, Side.LEFT, true);
+            case LEFT: return getAutoIndices(dimensions, Side.BACK, Side.RIGHT, false);
             }
         }
 
         throw new IllegalStateException("Unknown error occurred");
     }
 
+    @Override
+    public Color[] getEdgeStrip(Side side, Side edge)
+    {
+        int[] indices = getEdgeStripIndices(dimensions_, side, edge);
+
+        return lock_.read(() ->
+        {
+            Color[] colors = new Color[indices.length];
+            for(int i = 0; i < indices.length; ++i)
+            {
+                colors[i] = stickers_[indices[i]];
+            }
+
+            return colors;
+        });
+    }
+
+    /**
+     * Sets the color of a location.
+     *
+     * @param   side        Side of the location.
+     * @param   location    Location on the side.
+     * @param   color       Color to set.
+     */
+    public void setColor(Side side, Location location, Color color)
+    {
+        final int index = side.ordinal() * dimensions_ * dimensions_ + Face.retrieveLocationIndex(dimensions_, location);
+
+        synchronized(mutex)
+        {
+            lock_.write(() ->
+            {
+                fingerprint_ ^= Zobrist.delta(index, stickers_[index].ordinal(), color.ordinal());
+                stickers_[index] = color;
+
+                updateSlots(-1);
+            });
+
+            if(animated_)
+            {
+                animator_.jump(queued_ = snapshot());
+            }
+        }
+    }
+
+    @Override
+    public long getFingerprint()
+    {
+        return fingerprint_;
+    }
+
+    @Override
+    public CubeSnapshot snapshot()
+    {
+        return lock_.read(() -> CubeSnapshot.pack(dimensions_, index -> stickers_[index].ordinal()));
+    }
+
     @Override
     public IFace getFace(Side side)
     {
@@ -272,7 +694,7 @@ public class Cube implements ICube
     @Override
     public boolean isComplete()
     {
-        return Arrays.stream(faces_).allMatch(Face::isSolid);
+        return lock_.test(() -> Arrays.stream(faces_).allMatch(Face::isSolid));
     }
 
     public static class DirectionOrder
@@ -290,33 +712,6 @@ public class Cube implements ICube
             reverse_ = reverse;
         }
 
-        /**
-         * Caches the colors to set.
-         *
-         * @param   cube    Cube to get from.
-         * @param   offset  Offset of side.
-         *
-         * @return          Returns colors of from {@link Side}.
-         */
-        public Color[] cache(Cube cube, int offset)
-        {
-            Face face = cube.faces_[from_.ordinal()];
-            return face.getColors(face.retrieveIndices(fromSide_, offset, false));
-        }
-
-        /**
-         * Sets the specified {@code colors} to the side.
-         *
-         * @param   cube    Cube to set to.
-         * @param   colors  {@link Color} array to use.
-         * @param   offset  Offset of side.
-         */
-        public void execute(Cube cube, Color[] colors, int offset)
-        {
-            Face face = cube.faces_[to_.ordinal()];
-            face.setColors(face.retrieveIndices(toSide_, offset, reverse_), colors);
-        }
-
         public Side getFrom() { return from_; }
         public Side getTo() { return to_; }
         public Side getFromSide() { return fromSide_; }
@@ -333,41 +728,19 @@ public class Cube implements ICube
      */
     private void rotate(Side side, int offset, boolean ccw)
     {
-        if(offset == 0 || offset == dimensions_ - 1)
-        {
-            faces_[side.ordinal()].rotate(ccw);
-        }
+        final int[] cycles = moves_.get(side, offset);
+        final long touched = getTouchedSlots(side, offset);
 
-        internalRotate(side, offset);
+        final long stamp = lock_.lockWrite();   // Held inline, a writer object per turn would be garbage.
 
-        if(ccw)
+        try
         {
-            for(int i = 0; i < 2; ++i)  // Three clockwise rotations is equivalent to one counterclockwise rotation
-            {
-                internalRotate(side, offset);
-            }
+            fingerprint_ ^= MoveTable.apply(stickers_, cycles, ccw);
+            updateSlots(touched);
         }
-    }
-
-    /**
-     * Rotates the edges of a side.
-     *
-     * @param   side    Side edges to rotate.
-     * @param   offset  Offset of rotation.
-     */
-    private void internalRotate(Side side, int offset)
-    {
-        DirectionOrder[] orders = getRotateOrders(side);
-        Color[][] colors = new Color[4][];
-
-        for(int i = 0; i < colors.length; ++i)
-        {
-            colors[i] = orders[i].cache(this, offset);
-        }
-
-        for(int i = 0; i < colors.length; ++i)
+        finally
         {
-            orders[i].execute(this, colors[i], offset);
+            lock_.unlockWrite(stamp);
         }
     }
 
@@ -378,7 +751,7 @@ public class Cube implements ICube
      *
      * @return          Array of {@link DirectionOrder}s.
      */
-    private DirectionOrder[] getRotateOrders(Side side)
+    static DirectionOrder[] getRotateOrders(Side side)
     {
         // Can be simplified into map.
 
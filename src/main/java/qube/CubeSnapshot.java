@@ -0,0 +1,424 @@
+package qube;
+
+import qube.algorithm3x3.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Immutable state of a cube.
+ *
+ * <p>Applying a move returns a new snapshot that shares every face the move did not touch, so snapshots can be
+ * branched freely from any thread. Faces are packed as 3-bit color codes in the same order as {@link PackedCube}.</p>
+ *
+ * <p>Snapshots are read through {@link IReadOnlyCube}, so they can never be handed to anything that rotates.</p>
+ */
+public final class CubeSnapshot implements IReadOnlyCube
+{
+    private static final int BITS = 3;
+    private static final int PER_WORD = Long.SIZE / BITS;
+    private static final long MASK = (1L << BITS) - 1;
+    private static final Color[] COLORS = Color.values();
+    private static final Map<Integer, Locators> LOCATORS = new ConcurrentHashMap<>();
+
+    private final int dimensions_;
+    private final Locators locators_;
+    private final long[][] faces_;
+    private final long fingerprint_;
+
+    private CubeSnapshot(int dimensions, Locators locators, long[][] faces, long fingerprint)
+    {
+        dimensions_ = dimensions;
+        locators_ = locators;
+        faces_ = faces;
+        fingerprint_ = fingerprint;
+    }
+
+    /**
+     * Creates the snapshot of a solved cube.
+     *
+     * @param   dimensions  Width and height of each face of the cube.
+     *
+     * @return              Solved snapshot.
+     */
+    public static CubeSnapshot solved(int dimensions)
+    {
+        return pack(dimensions, index -> index / (dimensions * dimensions));
+    }
+
+    /**
+     * Packs the state of a cube.
+     *
+     * @param   dimensions  Dimensions of the cube.
+     * @param   codes       Color ordinals by index across the whole cube.
+     *
+     * @return              Snapshot of the state.
+     */
+    static CubeSnapshot pack(int dimensions, IntUnaryOperator codes)
+    {
+        final int area = dimensions * dimensions;
+
+        long[][] faces = new long[6][];
+        long fingerprint = 0;
+
+        for(int i = 0; i < faces.length; ++i)
+        {
+            faces[i] = new long[(area + PER_WORD - 1) / PER_WORD];
+
+            for(int j = 0; j < area; ++j)
+            {
+                int code = codes.applyAsInt(i * area + j);
+
+                faces[i][j / PER_WORD] |= (long)code << (j % PER_WORD * BITS);
+                fingerprint ^= Zobrist.key(i * area + j, code);
+            }
+        }
+
+        return new CubeSnapshot(dimensions, LOCATORS.computeIfAbsent(dimensions, Locators::new), faces, fingerprint);
+    }
+
+    /**
+     * Applies a move.
+     *
+     * @param   move    Move to apply.
+     *
+     * @return          Snapshot after the move.
+     */
+    public CubeSnapshot apply(Move move)
+    {
+        return apply(move.getSide(), move.isCcw(), move.getCount(), move.getOffset());
+    }
+
+    /**
+     * Applies a sequence of moves.
+     *
+     * @param   moves   Moves to apply in order.
+     *
+     * @return          Snapshot after every move.
+     */
+    public CubeSnapshot apply(Move... moves)
+    {
+        CubeSnapshot snapshot = this;
+        for(Move move : moves)
+        {
+            snapshot = snapshot.apply(move);
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Applies a rotation.
+     *
+     * @param   side    Side to rotate.
+     * @param   ccw     Whether to rotate counterclockwise.
+     * @param   count   Number of times to rotate.
+     * @param   offset  Offset from side.
+     *
+     * @return          Snapshot after the rotation.
+     */
+    public CubeSnapshot apply(Side side, boolean ccw, int count, int offset)
+    {
+        count %= 4;
+        if(count == 0)
+        {
+            return this;
+        }
+        else if(count == 3)
+        {
+            ccw = !ccw;
+            count = 1;
+        }
+
+        final int[] cycles = locators_.moves_.get(side, offset);
+        final int[] located = locators_.get(side, offset, cycles);
+
+        long[][] faces = faces_.clone();
+        long fingerprint = fingerprint_;
+
+        for(int face = 0, copied = locators_.faces(side, offset); copied != 0; ++face, copied >>>= 1)
+        {
+            if((copied & 1) != 0)
+            {
+                faces[face] = faces[face].clone();
+            }
+        }
+
+        for(int n = 0; n < count; ++n)
+        {
+            for(int i = 0; i < cycles.length; i += 4)
+            {
+                final int a = cycles[i], b = cycles[i + 1], c = cycles[i + 2], d = cycles[i + 3];
+                final int la = located[i], lb = located[i + 1], lc = located[i + 2], ld = located[i + 3];
+                final int ca = get(faces, la), cb = get(faces, lb), cc = get(faces, lc), cd = get(faces, ld);
+
+                final int na = ccw ? cb : cd;
+                final int nb = ccw ? cc : ca;
+                final int nc = ccw ? cd : cb;
+                final int nd = ccw ? ca : cc;
+
+                set(faces, la, na);
+                set(faces, lb, nb);
+                set(faces, lc, nc);
+                set(faces, ld, nd);
+
+                fingerprint ^= Zobrist.delta(a, ca, na) ^ Zobrist.delta(b, cb, nb)
+                        ^ Zobrist.delta(c, cc, nc) ^ Zobrist.delta(d, cd, nd);
+            }
+        }
+
+        return new CubeSnapshot(dimensions_, locators_, faces, fingerprint);
+    }
+
+    /**
+     * Gets the color code at a location.
+     *
+     * @param   faces   Packed faces.
+     * @param   locator Packed face, word and shift of the color, as built by {@link Locators#locate}.
+     *
+     * @return          Ordinal of the color.
+     */
+    private static int get(long[][] faces, int locator)
+    {
+        return (int)(faces[locator >>> 6 & 7][locator >>> 9] >>> (locator & 63) & MASK);
+    }
+
+    /**
+     * Sets the color code at a location.
+     *
+     * @param   faces   Packed faces, the face of {@code locator} not being shared.
+     * @param   locator Packed face, word and shift of the color, as built by {@link Locators#locate}.
+     * @param   code    Ordinal of the color to set.
+     */
+    private static void set(long[][] faces, int locator, int code)
+    {
+        final int shift = locator & 63;
+
+        long[] face = faces[locator >>> 6 & 7];
+        face[locator >>> 9] = face[locator >>> 9] & ~(MASK << shift) | (long)code << shift;
+    }
+
+    /**
+     * Gets the color at an index.
+     *
+     * @param   index   Index across the whole cube.
+     *
+     * @return          Color at the index.
+     */
+    Color getColor(int index)
+    {
+        return COLORS[get(faces_, Locators.locate(dimensions_, index))];
+    }
+
+    @Override
+    public Future<LocationSpace> find(ISearch search)
+    {
+        for(Side side : Side.values())
+        {
+            IFace face = getFace(side);
+
+            for(Location location : Location.values())
+            {
+                Color color = face.getColor(location);
+                if(search.test(side, location, color))
+                {
+                    return CompletableFuture.completedFuture(new LocationSpace(side, location, color));
+                }
+            }
+        }
+
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public Future<List<LocationSpace>> findAll(ISearch search)
+    {
+        List<LocationSpace> spaces = new ArrayList<>();
+
+        for(Side side : Side.values())
+        {
+            IFace face = getFace(side);
+
+            for(Location location : Location.values())
+            {
+                Color color = face.getColor(location);
+                if(search.test(side, location, color))
+                {
+                    spaces.add(new LocationSpace(side, location, color));
+                }
+            }
+        }
+
+        return CompletableFuture.completedFuture(spaces);
+    }
+
+    @Override
+    public Color[] getEdgeStrip(Side side, Side edge)
+    {
+        int[] indices = Cube.getEdgeStripIndices(dimensions_, side, edge);
+        Color[] colors = new Color[indices.length];
+
+        for(int i = 0; i < indices.length; ++i)
+        {
+            colors[i] = getColor(indices[i]);
+        }
+
+        return colors;
+    }
+
+    @Override
+    public long getFingerprint()
+    {
+        return fingerprint_;
+    }
+
+    @Override
+    public CubeSnapshot snapshot()
+    {
+        return this;
+    }
+
+    @Override
+    public IFace getFace(Side side)
+    {
+        return new SnapshotFace(side.ordinal() * dimensions_ * dimensions_);
+    }
+
+    @Override
+    public boolean isComplete()
+    {
+        for(Side side : Side.values())
+        {
+            if(!getFace(side).isSolid())
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public int getDimensions() { return dimensions_; }
+
+    /**
+     * Turn cycles of a {@link MoveTable} translated into packed face locations.
+     */
+    private static final class Locators
+    {
+        private final int dimensions_;
+        private final MoveTable moves_;
+        private final AtomicReferenceArray<int[]> located_;
+        private final AtomicIntegerArray faces_;
+
+        private Locators(int dimensions)
+        {
+            dimensions_ = dimensions;
+            moves_ = MoveTable.of(dimensions);
+            located_ = new AtomicReferenceArray<>(6 * dimensions);
+            faces_ = new AtomicIntegerArray(6 * dimensions);
+        }
+
+        /**
+         * Locates an index within packed faces.
+         *
+         * @param   dimensions  Dimensions of the cube.
+         * @param   index       Index across the whole cube.
+         *
+         * @return              Word in bits 9 and up, face in bits 6 to 8 and shift in bits 0 to 5.
+         */
+        static int locate(int dimensions, int index)
+        {
+            final int area = dimensions * dimensions;
+            final int local = index % area;
+
+            return local / PER_WORD << 9 | index / area << 6 | local % PER_WORD * BITS;
+        }
+
+        /**
+         * Gets the located cycles of a turn, translating them on first use.
+         *
+         * @param   side    Side to rotate.
+         * @param   offset  Offset from side.
+         * @param   cycles  Cycles of the turn.
+         *
+         * @return          Locations of every index in {@code cycles}.
+         */
+        int[] get(Side side, int offset, int[] cycles)
+        {
+            final int index = side.ordinal() * dimensions_ + offset;
+
+            int[] located = located_.get(index);
+            if(located == null)
+            {
+                located = new int[cycles.length];
+                int faces = 0;
+
+                for(int i = 0; i < cycles.length; ++i)
+                {
+                    located[i] = locate(dimensions_, cycles[i]);
+                    faces |= 1 << (located[i] >>> 6 & 7);
+                }
+
+                faces_.set(index, faces);
+                located_.set(index, located);
+            }
+
+            return located;
+        }
+
+        /**
+         * Gets the faces touched by a turn, after its cycles have been located.
+         *
+         * @param   side    Side to rotate.
+         * @param   offset  Offset from side.
+         *
+         * @return          Bitmask of face ordinals.
+         */
+        int faces(Side side, int offset)
+        {
+            return faces_.get(side.ordinal() * dimensions_ + offset);
+        }
+    }
+
+    /**
+     * View of a single face of the snapshot.
+     */
+    private class SnapshotFace implements IFace
+    {
+        private final int start_;
+
+        private SnapshotFace(int start)
+        {
+            start_ = start;
+        }
+
+        @Override
+        public Color getColor(Location location)
+        {
+            return CubeSnapshot.this.getColor(start_ + Face.retrieveLocationIndex(dimensions_, location));
+        }
+
+        @Override
+        public boolean isSolid()
+        {
+            final Color base = getColor(Location.CENTER);
+
+            for(int i = 0; i < dimensions_ * dimensions_; ++i)
+            {
+                if(CubeSnapshot.this.getColor(start_ + i) != base)
+                {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+}
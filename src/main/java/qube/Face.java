@@ -4,11 +4,10 @@ import processing.core.PApplet;
 import qube.algorithm3x3.IFace;
 import qube.algorithm3x3.Location;
 
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
-import java.util.List;
-import java.util.function.Predicate;
+import java.util.function.IntFunction;
 import java.util.stream.IntStream;
 
 public class Face implements IFace
@@ -17,9 +16,10 @@ public class Face implements IFace
 
     private final int dimensions_;
     private final Color[] colors_;
-    private final int[] borderSeq_;
+    private final int start_;
+    private final int[] rotationSeq_;
     private final int tileSize_;
-    private final Object mutex = new Object();
+    private final StateLock lock_;
 
     /**
      * Constructs face.
@@ -29,63 +29,106 @@ public class Face implements IFace
      */
     public Face(int dimensions, Color color)
     {
-        dimensions_ = dimensions;
-        colors_ = new Color[dimensions * dimensions];
+        this(dimensions, new Color[dimensions * dimensions], 0, new StateLock());
         Arrays.fill(colors_, color);
+    }
 
-        IntStream top = IntStream.range(0, dimensions - 1);
-        IntStream right = IntStream.iterate(dimensions - 1, n -> n + dimensions).limit(dimensions - 1);
-        IntStream down = IntStream.iterate(dimensions * dimensions - 1, n -> n - 1).limit(dimensions - 1);
-        IntStream left = IntStream.iterate(dimensions * (dimensions - 1), n -> n - dimensions).limit(dimensions - 1);
+    /**
+     * Constructs a face backed by part of a larger array.
+     *
+     * @param   dimensions  Width and height of side.
+     * @param   colors      Array holding the colors of the face.
+     * @param   start       Index of the face's first color within {@code colors}.
+     * @param   lock        Lock guarding {@code colors}.
+     */
+    Face(int dimensions, Color[] colors, int start, StateLock lock)
+    {
+        dimensions_ = dimensions;
+        colors_ = colors;
+        start_ = start;
+        lock_ = lock;
 
-        borderSeq_ = IntStream.concat(IntStream.concat(top, right), IntStream.concat(down, left)).toArray();
+        rotationSeq_ = retrieveRotationCycles(dimensions);
         tileSize_ = TARGET_FACE_SIDE / dimensions;
     }
 
     /**
-     * Rotates the face.
+     * Retrieves the 4-cycles of a clockwise quarter turn of a face, ring by ring from the outside in.
      *
-     * @param   ccw Whether to rotate counterclockwise.
+     * <p>Clockwise, the color at {@code cycles[i]} moves to {@code cycles[i + 1]}, {@code cycles[i + 1]} to
+     * {@code cycles[i + 2]}, {@code cycles[i + 2]} to {@code cycles[i + 3]} and {@code cycles[i + 3]} back to
+     * {@code cycles[i]}.</p>
+     *
+     * @param   dimensions  Width and height of the face.
+     *
+     * @return              Flat array of 4-cycles.
      */
-    public void rotate(boolean ccw)
+    static int[] retrieveRotationCycles(int dimensions)
     {
-        synchronized(mutex)
-        {
-            List<Color> cache = new ArrayList<>(borderSeq_.length);
+        final int last = dimensions - 1;
 
-            for(int i : borderSeq_)
-            {
-                cache.add(colors_[i]);
-            }
+        int[] cycles = new int[dimensions * dimensions - dimensions % 2];    // Every sticker but an odd face's center.
+        int index = 0;
 
-            if(!ccw)    // Clockwise
-            {
-                Collections.rotate(cache, dimensions_ - 1);
-            }
-            else        // Counterclockwise
+        for(int ring = 0; ring < dimensions / 2; ++ring)
+        {
+            for(int i = ring; i < last - ring; ++i)
             {
-                Collections.rotate(cache, -(dimensions_ - 1));
+                cycles[index++] = ring * dimensions + i;                    // Top, left to right.
+                cycles[index++] = i * dimensions + last - ring;             // Right, top to bottom.
+                cycles[index++] = (last - ring) * dimensions + last - i;    // Bottom, right to left.
+                cycles[index++] = (last - i) * dimensions + ring;           // Left, bottom to top.
             }
+        }
 
-            int index = 0;
-            for(int i : borderSeq_)
+        return cycles;
+    }
+
+    /**
+     * Rotates the face.
+     *
+     * @param   ccw Whether to rotate counterclockwise.
+     */
+    public void rotate(boolean ccw)
+    {
+        lock_.write(() ->
+        {
+            for(int i = 0; i < rotationSeq_.length; i += 4)
             {
-                colors_[i] = cache.get(index++);
+                final int a = start_ + rotationSeq_[i], b = start_ + rotationSeq_[i + 1];
+                final int c = start_ + rotationSeq_[i + 2], d = start_ + rotationSeq_[i + 3];
+                final Color color = colors_[a];
+
+                if(!ccw)    // Clockwise
+                {
+                    colors_[a] = colors_[d];
+                    colors_[d] = colors_[c];
+                    colors_[c] = colors_[b];
+                    colors_[b] = color;
+                }
+                else        // Counterclockwise
+                {
+                    colors_[a] = colors_[b];
+                    colors_[b] = colors_[c];
+                    colors_[c] = colors_[d];
+                    colors_[d] = color;
+                }
             }
-        }
+        });
     }
 
     /**
      * Retrieves the indices of a row.
      *
-     * @param   row     Row index from the left.
-     * @param   reverse Whether to reverse the indices.
+     * @param   dimensions  Width and height of the face.
+     * @param   row         Row index from the left.
+     * @param   reverse     Whether to reverse the indices.
      *
-     * @return          Indices of the colors in that row.
+     * @return              Indices of the colors in that row.
      */
-    private int[] retrieveRowIndices(int row, boolean reverse)
+    private static int[] retrieveRowIndices(int dimensions, int row, boolean reverse)
     {
-        IntStream stream = IntStream.range(0, dimensions_).map(n -> n + row * dimensions_);
+        IntStream stream = IntStream.range(0, dimensions).map(n -> n + row * dimensions);
 
         if(reverse)
         {
@@ -98,14 +141,15 @@ public class Face implements IFace
     /**
      * Retrieves the indices of a column.
      *
-     * @param   col     Column index from the left.
-     * @param   reverse Whether to reverse the indices.
+     * @param   dimensions  Width and height of the face.
+     * @param   col         Column index from the left.
+     * @param   reverse     Whether to reverse the indices.
      *
-     * @return          Indices of the colors in that column.
+     * @return              Indices of the colors in that column.
      */
-    private int[] retrieveColumnIndices(int col, boolean reverse)
+    private static int[] retrieveColumnIndices(int dimensions, int col, boolean reverse)
     {
-        IntStream stream = IntStream.iterate(col, n -> n + dimensions_).limit(dimensions_);
+        IntStream stream = IntStream.iterate(col, n -> n + dimensions).limit(dimensions);
 
         if(reverse)
         {
@@ -125,16 +169,31 @@ public class Face implements IFace
      * @return          Array of indices.
      */
     public int[] retrieveIndices(Side side, int offset, boolean reverse)
+    {
+        return retrieveIndices(dimensions_, side, offset, reverse);
+    }
+
+    /**
+     * Retrieves indices from a side of a face with the given dimensions.
+     *
+     * @param dimensions    Width and height of the face.
+     * @param side          Side to start from.
+     * @param offset        Offset from side.
+     * @param reverse       Whether to reverse the indices.
+     *
+     * @return              Array of indices.
+     */
+    static int[] retrieveIndices(int dimensions, Side side, int offset, boolean reverse)
     {
         if(side == Side.LEFT || side == Side.RIGHT)
         {
-            int col = side == Side.LEFT ? offset : dimensions_ - offset - 1;    // Reverses column based on direction.
-            return retrieveColumnIndices(col, reverse);
+            int col = side == Side.LEFT ? offset : dimensions - offset - 1;     // Reverses column based on direction.
+            return retrieveColumnIndices(dimensions, col, reverse);
         }
         else
         {
-            int row = side == Side.UP ? offset : dimensions_ - offset - 1;      // Reverses row based on direction.
-            return  retrieveRowIndices(row, reverse);
+            int row = side == Side.UP ? offset : dimensions - offset - 1;       // Reverses row based on direction.
+            return retrieveRowIndices(dimensions, row, reverse);
         }
     }
 
@@ -146,10 +205,7 @@ public class Face implements IFace
      */
     public void setColors(int[] indices, Color[] colors)
     {
-        synchronized(mutex)
-        {
-            parseIndices(indices, colors);
-        }
+        lock_.write(() -> parseIndices(indices, colors));
     }
 
     /**
@@ -161,10 +217,7 @@ public class Face implements IFace
      */
     public Color[] getColors(int[] indices)
     {
-        synchronized(mutex)
-        {
-            return parseIndices(indices);
-        }
+        return lock_.read(() -> parseIndices(indices));
     }
 
     /**
@@ -181,7 +234,7 @@ public class Face implements IFace
         int index = 0;
         for(int i : indices)
         {
-            colors[index++] = colors_[i];
+            colors[index++] = colors_[start_ + i];
         }
 
         return colors;
@@ -198,17 +251,30 @@ public class Face implements IFace
         int index = 0;
         for(int i : indices)
         {
-            colors_[i] = colors[index++];
+            colors_[start_ + i] = colors[index++];
         }
     }
 
     /**
      * Draws face.
      *
-     * @param   canvas      Canvas to draw on.
-     * @param   shouldDraw  Checks if the index should be draw. Used for animating.
+     * @param   canvas  Canvas to draw on.
+     * @param   hidden  Indices not to draw. Used for animating.
      */
-    public void draw(PApplet canvas, Predicate<Integer> shouldDraw)
+    public void draw(PApplet canvas, BitSet hidden)
+    {
+        Color[] colors = lock_.read(() -> Arrays.copyOfRange(colors_, start_, start_ + dimensions_ * dimensions_));
+        draw(canvas, index -> colors[index], hidden);
+    }
+
+    /**
+     * Draws face from colors held elsewhere, such as a snapshot of the cube.
+     *
+     * @param   canvas  Canvas to draw on.
+     * @param   colors  Gets the color at an index on the face.
+     * @param   hidden  Indices not to draw. Used for animating.
+     */
+    void draw(PApplet canvas, IntFunction<Color> colors, BitSet hidden)
     {
         canvas.pushMatrix();
         canvas.stroke(10);
@@ -217,14 +283,14 @@ public class Face implements IFace
         {
             for(int x = 0; x < dimensions_; ++x)
             {
-                colors_[y * dimensions_ + x].fill(canvas);
+                colors.apply(y * dimensions_ + x).fill(canvas);
 
                 if(x == (int)(dimensions_ * 0.5f) && y == 0 && Qube.isDebug())
                 {
                     Color.PURPLE.fill(canvas);
                 }
 
-                if(shouldDraw.test(y * dimensions_ + x))
+                if(!hidden.get(y * dimensions_ + x))
                 {
                     canvas.rect((x - dimensions_ * 0.5f) * tileSize_, (y - dimensions_ * 0.5f) * tileSize_, tileSize_, tileSize_);
                 }
@@ -236,26 +302,66 @@ public class Face implements IFace
 
     @Override
     public Color getColor(Location location)
+    {
+        final int index = start_ + retrieveLocationIndex(dimensions_, location);
+
+        while(true)   // Read inline, this is the hottest call of every search.
+        {
+            final long stamp = lock_.begin();
+            final Color color = colors_[index];
+
+            if(lock_.validate(stamp))
+            {
+                return color;
+            }
+        }
+    }
+
+    /**
+     * Retrieves the index of a location on a face with the given dimensions.
+     *
+     * @param   dimensions  Width and height of the face.
+     * @param   location    Location on the face.
+     *
+     * @return              Index of the location.
+     */
+    static int retrieveLocationIndex(int dimensions, Location location)
     {
         switch(location)
         {
         default:
-        case CENTER: return colors_[dimensions_ * dimensions_ / 2];
-        case TOP: return colors_[dimensions_ / 2];
-        case RIGHT: return colors_[dimensions_ * dimensions_ / 2 + dimensions_ / 2];
-        case BOTTOM: return colors_[dimensions_ * dimensions_ - dimensions_ / 2 - 1];
-        case LEFT: return colors_[dimensions_ * dimensions_ / 2 - dimensions_ / 2];
-        case TOP_LEFT: return colors_[0];
-        case TOP_RIGHT: return colors_[dimensions_ - 1];
-        case BOTTOM_RIGHT: return colors_[dimensions_ * dimensions_ - 1];
-        case BOTTOM_LEFT: return colors_[dimensions_ * dimensions_ - dimensions_];
+        case CENTER: return dimensions * dimensions / 2;
+        case TOP: return dimensions / 2;
+        case RIGHT: return dimensions * dimensions / 2 + dimensions / 2;
+        case BOTTOM: return dimensions * dimensions - dimensions / 2 - 1;
+        case LEFT: return dimensions * dimensions / 2 - dimensions / 2;
+        case TOP_LEFT: return 0;
+        case TOP_RIGHT: return dimensions - 1;
+        case BOTTOM_RIGHT: return dimensions * dimensions - 1;
+        case BOTTOM_LEFT: return dimensions * dimensions - dimensions;
         }
     }
 
     @Override
     public boolean isSolid()
     {
-        final Color base = getColor(Location.CENTER);
-        return Arrays.stream(colors_).allMatch(c -> c == base);
+        final int center = start_ + retrieveLocationIndex(dimensions_, Location.CENTER);
+
+        while(true)
+        {
+            final long stamp = lock_.begin();
+            final Color base = colors_[center];
+
+            boolean solid = true;
+            for(int i = start_; solid && i < start_ + dimensions_ * dimensions_; ++i)
+            {
+                solid = colors_[i] == base;
+            }
+
+            if(lock_.validate(stamp))
+            {
+                return solid;
+            }
+        }
     }
 }
@@ -0,0 +1,121 @@
+package qube;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts non-negative values into buckets without locking, so many threads can record at once.
+ *
+ * <p>Values below {@code 64} get a bucket each, larger values share one of {@code 32} buckets per power of two,
+ * keeping every percentile within about three percent of the value recorded. The maximum is kept exactly.</p>
+ */
+public class Histogram
+{
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts_ = new AtomicLongArray(BUCKETS);
+    private final LongAdder count_ = new LongAdder();
+    private final LongAdder sum_ = new LongAdder();
+    private final LongAccumulator max_ = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records a value.
+     *
+     * @param   value   Value to record, clamped to zero if negative.
+     */
+    public void record(long value)
+    {
+        value = Math.max(0, value);
+
+        counts_.incrementAndGet(bucket(value));
+        count_.increment();
+        sum_.add(value);
+        max_.accumulate(value);
+    }
+
+    /**
+     * Gets a percentile of the values recorded so far.
+     *
+     * @param   percent Percentage of values at or below the result, from {@code 0} to {@code 100}.
+     *
+     * @return          Highest value of the bucket holding the percentile, or {@code 0} if nothing was recorded.
+     */
+    public long getPercentile(double percent)
+    {
+        final long total = count_.sum();
+        if(total == 0)
+        {
+            return 0;
+        }
+
+        final long rank = Math.max(1, (long)Math.ceil(total * percent / 100));
+
+        long seen = 0;
+        for(int bucket = 0; bucket < BUCKETS; ++bucket)
+        {
+            seen += counts_.get(bucket);
+            if(seen >= rank)
+            {
+                return Math.min(highest(bucket), getMax());
+            }
+        }
+
+        return getMax();
+    }
+
+    /**
+     * Gets the bucket of a value.
+     *
+     * @param   value   Non-negative value.
+     *
+     * @return          Index of the bucket.
+     */
+    private static int bucket(long value)
+    {
+        if(value < SUB_BUCKETS * 2)
+        {
+            return (int)value;
+        }
+
+        final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int)(value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Gets the highest value of a bucket.
+     *
+     * @param   bucket  Index of the bucket.
+     *
+     * @return          Highest value counted into it.
+     */
+    private static long highest(int bucket)
+    {
+        if(bucket < SUB_BUCKETS * 2)
+        {
+            return bucket;
+        }
+
+        final int shift = bucket / SUB_BUCKETS - 1;
+        final long sub = bucket % SUB_BUCKETS + SUB_BUCKETS;
+
+        final long next = (sub + 1) << shift;
+        return next < 0 ? Long.MAX_VALUE : next - 1;   // The last bucket ends past the largest long.
+    }
+
+    /**
+     * Gets the mean of the values recorded so far.
+     *
+     * @return  Mean, or {@code 0} if nothing was recorded.
+     */
+    public double getMean()
+    {
+        final long total = count_.sum();
+        return total == 0 ? 0 : (double)sum_.sum() / total;
+    }
+
+    public long getCount() { return count_.sum(); }
+    public long getMax() { return max_.get(); }
+}
@@ -0,0 +1,521 @@
+package qube;
+
+import qube.algorithm3x3.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Headless cube for very large dimensions.
+ *
+ * <p>Stickers are packed as 4-bit color codes, each row of a face starting on a new word, so a row is a run of whole
+ * words and a slice turn copies rows word by word. Columns are read and written one nibble per row, and a face turn
+ * is done tile by tile into a spare face. No per-turn tables are kept, so memory stays at half a byte per sticker.</p>
+ *
+ * <p>The fingerprint is computed on demand instead of incrementally, as updating it would cost more than the turn.</p>
+ */
+public class LargeCube implements ICube
+{
+    private static final int BITS = 4;
+    private static final int PER_WORD = Long.SIZE / BITS;
+    private static final long MASK = (1L << BITS) - 1;
+    private static final long LOW_NIBBLES = 0x0F0F0F0F0F0F0F0FL;
+    private static final Color[] COLORS = Color.values();
+
+    private final int dimensions_;
+    private final int rowWords_;
+    private final long[][] faces_;
+    private final long[][] buffers_;
+    private long[] spare_;
+
+    /**
+     * Constructs a solved cube.
+     *
+     * @param   dimensions  Width and height of each face of the cube.
+     */
+    public LargeCube(int dimensions)
+    {
+        dimensions_ = dimensions;
+        rowWords_ = (dimensions + PER_WORD - 1) / PER_WORD;
+        faces_ = new long[6][dimensions * rowWords_];
+        buffers_ = new long[4][rowWords_];
+        spare_ = new long[dimensions * rowWords_];
+
+        for(int i = 0; i < faces_.length; ++i)
+        {
+            long[] row = solidRow(i);
+            for(int j = 0; j < dimensions; ++j)
+            {
+                System.arraycopy(row, 0, faces_[i], j * rowWords_, rowWords_);
+            }
+        }
+    }
+
+    /**
+     * Scrambles a cube.
+     *
+     * @param   min         Minimum turns.
+     * @param   max         Maximum turns.
+     * @param   maxOffset   Maximum distance from face to rotate.
+     */
+    public void scramble(int min, int max, int maxOffset)
+    {
+        int num = min + (int)(Math.random() * (max - min + 1));
+
+        synchronized(faces_)
+        {
+            for(int i = 0; i < num; ++i)
+            {
+                Side side = Side.values()[(int)(Math.random() * 6)];
+                int offset = (int)(Math.random() * Math.min(maxOffset, dimensions_));
+                boolean ccw = (int)(Math.random() * 2) == 1;
+
+                rotate(side, offset, ccw);
+            }
+        }
+    }
+
+    /**
+     * Builds a row of a single color.
+     *
+     * @param   code    Ordinal of the color.
+     *
+     * @return          Packed row, padding left empty.
+     */
+    private long[] solidRow(int code)
+    {
+        long[] row = new long[rowWords_];
+        for(int i = 0; i < dimensions_; ++i)
+        {
+            row[i / PER_WORD] |= (long)code << (i % PER_WORD * BITS);
+        }
+
+        return row;
+    }
+
+    /**
+     * Gets the color code at a position.
+     *
+     * @param   face    Face ordinal.
+     * @param   index   Row-major index on the face.
+     *
+     * @return          Ordinal of the color.
+     */
+    private int getCode(int face, int index)
+    {
+        final int row = index / dimensions_;
+        final int col = index % dimensions_;
+
+        return (int)(faces_[face][row * rowWords_ + col / PER_WORD] >>> (col % PER_WORD * BITS) & MASK);
+    }
+
+    @Override
+    public Future<Void> rotate(Side side, boolean ccw, int count, int offset)
+    {
+        rotateNow(side, ccw, count, offset);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public void rotateNow(Side side, boolean ccw, int count, int offset)
+    {
+        synchronized(faces_)
+        {
+            for(int i = 0; i < count; ++i)
+            {
+                rotate(side, offset, ccw);
+            }
+        }
+    }
+
+    @Override
+    public Future<Void> rotate(Move... moves)
+    {
+        rotateNow(moves);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public void rotateNow(Move... moves)
+    {
+        synchronized(faces_)
+        {
+            for(Move move : moves)
+            {
+                for(int i = 0; i < move.getCount(); ++i)
+                {
+                    rotate(move.getSide(), move.getOffset(), move.isCcw());
+                }
+            }
+        }
+    }
+
+    /**
+     * Rotates a face.
+     *
+     * @param   side    The side to rotate.
+     * @param   offset  Offset from side.
+     * @param   ccw     Whether to rotate counterclockwise.
+     */
+    private void rotate(Side side, int offset, boolean ccw)
+    {
+        if(offset == 0)
+        {
+            rotateFace(side.ordinal(), ccw);
+        }
+
+        if(offset == dimensions_ - 1)   // The far layer is the opposite face, turning the other way from its side.
+        {
+            rotateFace(side.opposite().ordinal(), !ccw);
+        }
+
+        Cube.DirectionOrder[] orders = Cube.getRotateOrders(side);
+
+        if(!ccw)
+        {
+            for(int i = 0; i < orders.length; ++i)
+            {
+                read(faces_[orders[i].getFrom().ordinal()], orders[i].getFromSide(), offset, buffers_[i]);
+            }
+
+            for(int i = 0; i < orders.length; ++i)
+            {
+                if(orders[i].isReverse())
+                {
+                    reverse(buffers_[i]);
+                }
+
+                write(faces_[orders[i].getTo().ordinal()], orders[i].getToSide(), offset, buffers_[i]);
+            }
+        }
+        else    // Runs every order backwards.
+        {
+            for(int i = 0; i < orders.length; ++i)
+            {
+                read(faces_[orders[i].getTo().ordinal()], orders[i].getToSide(), offset, buffers_[i]);
+
+                if(orders[i].isReverse())
+                {
+                    reverse(buffers_[i]);
+                }
+            }
+
+            for(int i = 0; i < orders.length; ++i)
+            {
+                write(faces_[orders[i].getFrom().ordinal()], orders[i].getFromSide(), offset, buffers_[i]);
+            }
+        }
+    }
+
+    /**
+     * Turns a whole face a quarter, into the spare face.
+     *
+     * @param   face    Face ordinal.
+     * @param   ccw     Whether to rotate counterclockwise.
+     */
+    private void rotateFace(int face, boolean ccw)
+    {
+        final long[] source = faces_[face];
+        final long[] target = spare_;
+        final int last = dimensions_ - 1;
+
+        // Works through tiles of one word by one word's worth of rows, so each tile reads a word from the same
+        // handful of source rows instead of striding down the whole face for every sticker.
+        for(int tile = 0; tile < dimensions_; tile += PER_WORD)
+        {
+            for(int word = 0; word < rowWords_; ++word)
+            {
+                for(int row = tile; row < Math.min(tile + PER_WORD, dimensions_); ++row)
+                {
+                    long packed = 0;
+
+                    for(int i = 0, col = word * PER_WORD; i < PER_WORD && col < dimensions_; ++i, ++col)
+                    {
+                        final int sourceRow = ccw ? col : last - col;
+                        final int sourceCol = ccw ? last - row : row;
+                        final long code = source[sourceRow * rowWords_ + sourceCol / PER_WORD]
+                                >>> (sourceCol % PER_WORD * BITS) & MASK;
+
+                        packed |= code << (i * BITS);
+                    }
+
+                    target[row * rowWords_ + word] = packed;
+                }
+            }
+        }
+
+        faces_[face] = target;
+        spare_ = source;
+    }
+
+    /**
+     * Reads a row or column of a face.
+     *
+     * @param   face    Packed face.
+     * @param   side    Side the strip is measured from, as in {@link Face#retrieveIndices}.
+     * @param   offset  Offset from side.
+     * @param   buffer  Buffer to read into, left to right or top to bottom.
+     */
+    private void read(long[] face, Side side, int offset, long[] buffer)
+    {
+        if(side == Side.UP || side == Side.DOWN)
+        {
+            int row = side == Side.UP ? offset : dimensions_ - offset - 1;
+            System.arraycopy(face, row * rowWords_, buffer, 0, rowWords_);
+        }
+        else
+        {
+            final int col = side == Side.LEFT ? offset : dimensions_ - offset - 1;
+            final int word = col / PER_WORD;
+            final int shift = col % PER_WORD * BITS;
+
+            Arrays.fill(buffer, 0);
+            for(int i = 0; i < dimensions_; ++i)
+            {
+                buffer[i / PER_WORD] |= (face[i * rowWords_ + word] >>> shift & MASK) << (i % PER_WORD * BITS);
+            }
+        }
+    }
+
+    /**
+     * Writes a row or column of a face.
+     *
+     * @param   face    Packed face.
+     * @param   side    Side the strip is measured from, as in {@link Face#retrieveIndices}.
+     * @param   offset  Offset from side.
+     * @param   buffer  Buffer to write, left to right or top to bottom.
+     */
+    private void write(long[] face, Side side, int offset, long[] buffer)
+    {
+        if(side == Side.UP || side == Side.DOWN)
+        {
+            int row = side == Side.UP ? offset : dimensions_ - offset - 1;
+            System.arraycopy(buffer, 0, face, row * rowWords_, rowWords_);
+        }
+        else
+        {
+            final int col = side == Side.LEFT ? offset : dimensions_ - offset - 1;
+            final int word = col / PER_WORD;
+            final int shift = col % PER_WORD * BITS;
+
+            for(int i = 0; i < dimensions_; ++i)
+            {
+                final int index = i * rowWords_ + word;
+                final long code = buffer[i / PER_WORD] >>> (i % PER_WORD * BITS) & MASK;
+
+                face[index] = face[index] & ~(MASK << shift) | code << shift;
+            }
+        }
+    }
+
+    /**
+     * Reverses the order of the stickers in a buffer.
+     *
+     * @param   buffer  Packed strip, padding left empty.
+     */
+    private void reverse(long[] buffer)
+    {
+        for(int i = 0, j = rowWords_ - 1; i <= j; ++i, --j)
+        {
+            long word = reverseNibbles(buffer[i]);
+            buffer[i] = reverseNibbles(buffer[j]);
+            buffer[j] = word;
+        }
+
+        // Padding has been reversed to the front, so the whole strip is shifted back down over it.
+        final int padding = (rowWords_ * PER_WORD - dimensions_) * BITS;
+        if(padding != 0)
+        {
+            for(int i = 0; i < rowWords_; ++i)
+            {
+                long next = i + 1 < rowWords_ ? buffer[i + 1] << (Long.SIZE - padding) : 0;
+                buffer[i] = buffer[i] >>> padding | next;
+            }
+        }
+    }
+
+    /**
+     * Reverses the order of the nibbles in a word.
+     *
+     * @param   word    Word to reverse.
+     *
+     * @return          Reversed word.
+     */
+    private static long reverseNibbles(long word)
+    {
+        word = Long.reverseBytes(word);
+        return (word & LOW_NIBBLES) << 4 | (word >>> 4) & LOW_NIBBLES;
+    }
+
+    @Override
+    public Future<LocationSpace> find(ISearch search)
+    {
+        final List<Side> sides = Arrays.stream(Side.values()).collect(Collectors.toList());
+        final List<Location> locations = Arrays.stream(Location.values()).collect(Collectors.toList());
+
+        synchronized(faces_)
+        {
+            Collections.shuffle(sides);
+            for(Side side : sides)
+            {
+                IFace face = getFace(side);
+
+                Collections.shuffle(locations);
+                for(Location location : locations)
+                {
+                    Color color = face.getColor(location);
+                    if(search.test(side, location, color))
+                    {
+                        return CompletableFuture.completedFuture(new LocationSpace(side, location, color));
+                    }
+                }
+            }
+        }
+
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public Future<List<LocationSpace>> findAll(ISearch search)
+    {
+        final List<Side> sides = Arrays.stream(Side.values()).collect(Collectors.toList());
+        final List<Location> locations = Arrays.stream(Location.values()).collect(Collectors.toList());
+
+        List<LocationSpace> spaces = new ArrayList<>();
+
+        synchronized(faces_)
+        {
+            Collections.shuffle(sides);
+            for(Side side : sides)
+            {
+                IFace face = getFace(side);
+
+                Collections.shuffle(locations);
+                for(Location location : locations)
+                {
+                    Color color = face.getColor(location);
+                    if(search.test(side, location, color))
+                    {
+                        spaces.add(new LocationSpace(side, location, color));
+                    }
+                }
+            }
+        }
+
+        return CompletableFuture.completedFuture(spaces);
+    }
+
+    @Override
+    public Color[] getEdgeStrip(Side side, Side edge)
+    {
+        final int area = dimensions_ * dimensions_;
+
+        int[] indices = Cube.getEdgeStripIndices(dimensions_, side, edge);
+        Color[] colors = new Color[indices.length];
+
+        synchronized(faces_)
+        {
+            for(int i = 0; i < indices.length; ++i)
+            {
+                colors[i] = COLORS[getCode(indices[i] / area, indices[i] % area)];
+            }
+        }
+
+        return colors;
+    }
+
+    @Override
+    public long getFingerprint()
+    {
+        final int area = dimensions_ * dimensions_;
+        long fingerprint = 0;
+
+        synchronized(faces_)
+        {
+            for(int i = 0; i < area * 6; ++i)
+            {
+                fingerprint ^= Zobrist.key(i, getCode(i / area, i % area));
+            }
+        }
+
+        return fingerprint;
+    }
+
+    @Override
+    public CubeSnapshot snapshot()
+    {
+        final int area = dimensions_ * dimensions_;
+
+        synchronized(faces_)
+        {
+            return CubeSnapshot.pack(dimensions_, index -> getCode(index / area, index % area));
+        }
+    }
+
+    @Override
+    public IFace getFace(Side side)
+    {
+        return new LargeFace(side.ordinal());
+    }
+
+    @Override
+    public boolean isComplete()
+    {
+        for(Side side : Side.values())
+        {
+            if(!getFace(side).isSolid())
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public int getDimensions() { return dimensions_; }
+
+    /**
+     * View of a single face of the cube.
+     */
+    private class LargeFace implements IFace
+    {
+        private final int face_;
+
+        private LargeFace(int face)
+        {
+            face_ = face;
+        }
+
+        @Override
+        public Color getColor(Location location)
+        {
+            return COLORS[getCode(face_, Face.retrieveLocationIndex(dimensions_, location))];
+        }
+
+        @Override
+        public boolean isSolid()
+        {
+            final long[] row = solidRow(getColor(Location.CENTER).ordinal());
+
+            synchronized(faces_)
+            {
+                final long[] face = faces_[face_];
+
+                for(int i = 0; i < face.length; ++i)
+                {
+                    if(face[i] != row[i % rowWords_])
+                    {
+                        return false;
+                    }
+                }
+            }
+
+            return true;
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package qube;
 
-import qube.algorithm3x3.ICube;
+import qube.algorithm3x3.IReadOnlyCube;
 import qube.algorithm3x3.Location;
 
 public class LocationSpace
@@ -26,7 +26,7 @@ public class LocationSpace
      *
      * @return          Color of location.
      */
-    public Color determineColor(ICube cube)
+    public Color determineColor(IReadOnlyCube cube)
     {
         return cube.getFace(side_).getColor(location_);
     }
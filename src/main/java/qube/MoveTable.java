@@ -0,0 +1,226 @@
+package qube;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Sticker permutations of every turn of a cube, compiled once per dimensions.
+ *
+ * <p>Indices span the whole cube, faces being laid out in {@link Side} order. A turn is stored as a flat run of
+ * 4-cycles; clockwise, the sticker at {@code cycles[i]} moves to {@code cycles[i + 1]} and the sticker at
+ * {@code cycles[i + 3]} moves back to {@code cycles[i]}. Counterclockwise turns walk the same cycles backwards.</p>
+ */
+final class MoveTable
+{
+    private static final Map<Integer, MoveTable> TABLES = new ConcurrentHashMap<>();
+
+    private final int dimensions_;
+    private final AtomicReferenceArray<int[]> cycles_;
+
+    private MoveTable(int dimensions)
+    {
+        dimensions_ = dimensions;
+        cycles_ = new AtomicReferenceArray<>(6 * dimensions);
+    }
+
+    /**
+     * Gets the move table shared by every cube of the given dimensions.
+     *
+     * @param   dimensions  Dimensions of the cube.
+     *
+     * @return              Shared move table.
+     */
+    static MoveTable of(int dimensions)
+    {
+        return TABLES.computeIfAbsent(dimensions, MoveTable::new);
+    }
+
+    /**
+     * Gets the cycles of a turn, compiling them on first use.
+     *
+     * @param   side    Side to rotate.
+     * @param   offset  Offset from side.
+     *
+     * @return          Flat array of 4-cycles.
+     */
+    int[] get(Side side, int offset)
+    {
+        final int index = side.ordinal() * dimensions_ + offset;
+
+        int[] cycles = cycles_.get(index);
+        if(cycles == null)
+        {
+            cycles = compile(side, offset);
+            cycles_.set(index, cycles);
+        }
+
+        return cycles;
+    }
+
+    /**
+     * Applies a turn to a whole cube state.
+     *
+     * @param   state   Cube state, faces laid out in {@link Side} order.
+     * @param   cycles  Cycles of the turn.
+     * @param   ccw     Whether to rotate counterclockwise.
+     *
+     * @return          Change in the state's {@link Zobrist} fingerprint.
+     */
+    static long apply(Color[] state, int[] cycles, boolean ccw)
+    {
+        long delta = 0;
+
+        for(int i = 0; i < cycles.length; i += 4)
+        {
+            final int a = cycles[i], b = cycles[i + 1], c = cycles[i + 2], d = cycles[i + 3];
+            final Color ca = state[a], cb = state[b], cc = state[c], cd = state[d];
+
+            if(!ccw)
+            {
+                state[a] = cd;
+                state[b] = ca;
+                state[c] = cb;
+                state[d] = cc;
+            }
+            else
+            {
+                state[a] = cb;
+                state[b] = cc;
+                state[c] = cd;
+                state[d] = ca;
+            }
+
+            delta ^= Zobrist.delta(a, ca.ordinal(), state[a].ordinal())
+                    ^ Zobrist.delta(b, cb.ordinal(), state[b].ordinal())
+                    ^ Zobrist.delta(c, cc.ordinal(), state[c].ordinal())
+                    ^ Zobrist.delta(d, cd.ordinal(), state[d].ordinal());
+        }
+
+        return delta;
+    }
+
+    /**
+     * Compiles a clockwise turn by tracing where every sticker is moved to.
+     *
+     * @param   side    Side to rotate.
+     * @param   offset  Offset from side.
+     *
+     * @return          Flat array of 4-cycles.
+     */
+    private int[] compile(Side side, int offset)
+    {
+        final int area = dimensions_ * dimensions_;
+
+        int[] state = new int[area * 6];    // Holds the original position of the sticker now at each index.
+        for(int i = 0; i < state.length; ++i)
+        {
+            state[i] = i;
+        }
+
+        final int[] rotation = Face.retrieveRotationCycles(dimensions_);
+
+        if(offset == 0)
+        {
+            rotate(state, side.ordinal() * area, rotation, false);
+        }
+
+        if(offset == dimensions_ - 1)   // The far layer is the opposite face, turning the other way from its side.
+        {
+            rotate(state, side.opposite().ordinal() * area, rotation, true);
+        }
+
+        Cube.DirectionOrder[] orders = Cube.getRotateOrders(side);
+        int[][] cache = new int[orders.length][];
+
+        for(int i = 0; i < orders.length; ++i)
+        {
+            int start = orders[i].getFrom().ordinal() * area;
+            int[] indices = Face.retrieveIndices(dimensions_, orders[i].getFromSide(), offset, false);
+
+            cache[i] = new int[indices.length];
+            for(int j = 0; j < indices.length; ++j)
+            {
+                cache[i][j] = state[start + indices[j]];
+            }
+        }
+
+        for(int i = 0; i < orders.length; ++i)
+        {
+            int start = orders[i].getTo().ordinal() * area;
+            int[] indices = Face.retrieveIndices(dimensions_, orders[i].getToSide(), offset, orders[i].isReverse());
+
+            for(int j = 0; j < indices.length; ++j)
+            {
+                state[start + indices[j]] = cache[i][j];
+            }
+        }
+
+        int[] destination = new int[state.length];
+        for(int i = 0; i < state.length; ++i)
+        {
+            destination[state[i]] = i;
+        }
+
+        int[] cycles = new int[state.length];
+        boolean[] visited = new boolean[state.length];
+        int count = 0;
+
+        for(int i = 0; i < state.length; ++i)
+        {
+            if(visited[i] || destination[i] == i)
+            {
+                continue;
+            }
+
+            int length = 0;
+            for(int j = i; !visited[j]; j = destination[j])
+            {
+                visited[j] = true;
+                cycles[count++] = j;
+                ++length;
+            }
+
+            if(length != 4)
+            {
+                throw new IllegalStateException("Turn does not decompose into 4-cycles");
+            }
+        }
+
+        return Arrays.copyOf(cycles, count);
+    }
+
+    /**
+     * Applies a quarter turn of a face to a traced state.
+     *
+     * @param   state       Original position of the sticker now at each index.
+     * @param   start       Index of the face's first sticker.
+     * @param   rotation    Cycles from {@link Face#retrieveRotationCycles}.
+     * @param   ccw         Whether to rotate counterclockwise.
+     */
+    private static void rotate(int[] state, int start, int[] rotation, boolean ccw)
+    {
+        for(int i = 0; i < rotation.length; i += 4)
+        {
+            final int a = start + rotation[i], b = start + rotation[i + 1];
+            final int c = start + rotation[i + 2], d = start + rotation[i + 3];
+            final int label = state[a];
+
+            if(!ccw)
+            {
+                state[a] = state[d];
+                state[d] = state[c];
+                state[c] = state[b];
+                state[b] = label;
+            }
+            else
+            {
+                state[a] = state[b];
+                state[b] = state[c];
+                state[c] = state[d];
+                state[d] = label;
+            }
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package qube;
+
+import qube.algorithm3x3.IReadOnlyCube;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Draws the unfolded net of a cube into an image without a display.
+ *
+ * <p>Sides are laid out as a cross, {@link Side#UP} above and {@link Side#DOWN} below {@link Side#FRONT}, with
+ * {@link Side#LEFT}, {@link Side#FRONT}, {@link Side#RIGHT} and {@link Side#BACK} in a row. Pixels are written
+ * straight into the image's buffer, so no graphics pipeline is needed.</p>
+ */
+public class NetRenderer
+{
+    private static final int BACKGROUND = 0xDCDCDC;
+    private static final int STROKE = 0x0A0A0A;
+    private static final int[][] LAYOUT = { { 1, 1 }, { 3, 1 }, { 1, 0 }, { 1, 2 }, { 2, 1 }, { 0, 1 } };   // By side.
+
+    private final int tileSize_;
+
+    /**
+     * Constructs a renderer.
+     *
+     * @param   tileSize    Width and height of a sticker in pixels.
+     */
+    public NetRenderer(int tileSize)
+    {
+        tileSize_ = tileSize;
+    }
+
+    /**
+     * Renders the current state of a cube.
+     *
+     * @param   cube    Cube to render.
+     *
+     * @return          Image of the net.
+     */
+    public BufferedImage render(IReadOnlyCube cube)
+    {
+        return render(cube.snapshot());
+    }
+
+    /**
+     * Renders a state of a cube.
+     *
+     * @param   snapshot    State to render.
+     *
+     * @return              Image of the net.
+     */
+    public BufferedImage render(CubeSnapshot snapshot)
+    {
+        final int dimensions = snapshot.getDimensions();
+        final int faceSize = dimensions * tileSize_;
+        final int margin = tileSize_ / 2;
+        final int width = faceSize * 4 + margin * 2;
+
+        BufferedImage image = new BufferedImage(width, faceSize * 3 + margin * 2, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+        Arrays.fill(pixels, BACKGROUND);
+
+        for(Side side : Side.values())
+        {
+            final int start = side.ordinal() * dimensions * dimensions;
+            final int left = margin + LAYOUT[side.ordinal()][0] * faceSize;
+            final int top = margin + LAYOUT[side.ordinal()][1] * faceSize;
+
+            for(int y = 0; y < dimensions; ++y)
+            {
+                for(int x = 0; x < dimensions; ++x)
+                {
+                    final int rgb = snapshot.getColor(start + y * dimensions + x).getRGB();
+                    fillTile(pixels, width, left + x * tileSize_, top + y * tileSize_, rgb);
+                }
+            }
+        }
+
+        return image;
+    }
+
+    /**
+     * Fills a sticker, outlined like the stickers drawn by {@link Face}.
+     *
+     * @param   pixels  Buffer of the image.
+     * @param   width   Width of the image.
+     * @param   left    Left edge of the sticker.
+     * @param   top     Top edge of the sticker.
+     * @param   rgb     Color of the sticker.
+     */
+    private void fillTile(int[] pixels, int width, int left, int top, int rgb)
+    {
+        for(int y = 0; y < tileSize_; ++y)
+        {
+            final int row = (top + y) * width + left;
+            final boolean edge = y == 0 || y == tileSize_ - 1;
+
+            Arrays.fill(pixels, row, row + tileSize_, edge ? STROKE : rgb);
+            pixels[row] = STROKE;
+            pixels[row + tileSize_ - 1] = STROKE;
+        }
+    }
+
+    /**
+     * Renders many states to PNG files on a pool of threads.
+     *
+     * <p>States are read from {@code states} on a single thread as workers free up, so they can be produced lazily
+     * and only a few images are held at once. Files are named by their position in {@code states}.</p>
+     *
+     * @param   states      States to render.
+     * @param   directory   Directory to write into, created if missing.
+     * @param   threads     Number of threads rendering and encoding.
+     *
+     * @return              Future of the number of images written, failing with the first error.
+     */
+    public Future<Integer> export(Iterator<? extends IReadOnlyCube> states, Path directory, int threads)
+    {
+        ExecutorService producer = Executors.newSingleThreadExecutor();   // Blocks for the whole export.
+
+        try
+        {
+            return CompletableFuture.supplyAsync(() ->
+            {
+                try
+                {
+                    Files.createDirectories(directory);
+                }
+                catch(IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+
+                ExecutorService executor = Executors.newFixedThreadPool(threads);
+                Semaphore slots = new Semaphore(threads * 2);   // Bounds images waiting to be written.
+                AtomicReference<Exception> error = new AtomicReference<>();
+
+                int count = 0;
+
+                try
+                {
+                    while(states.hasNext() && error.get() == null)
+                    {
+                        final CubeSnapshot snapshot = states.next().snapshot();
+                        final Path file = directory.resolve(String.format("%06d.png", count++));
+
+                        slots.acquire();
+                        executor.execute(() ->
+                        {
+                            try
+                            {
+                                ImageIO.write(render(snapshot), "png", file.toFile());
+                            }
+                            catch(IOException | RuntimeException e)
+                            {
+                                error.compareAndSet(null, e);
+                            }
+                            finally
+                            {
+                                slots.release();
+                            }
+                        });
+                    }
+                }
+                catch(InterruptedException e)
+                {
+                    executor.shutdownNow();
+                    Thread.currentThread().interrupt();
+
+                    throw new IllegalStateException("Export interrupted", e);
+                }
+                finally
+                {
+                    finish(executor);
+                }
+
+                if(error.get() instanceof IOException)
+                {
+                    throw new UncheckedIOException((IOException)error.get());
+                }
+                else if(error.get() != null)
+                {
+                    throw (RuntimeException)error.get();
+                }
+
+                return count;
+            }, producer);
+        }
+        finally
+        {
+            producer.shutdown();   // Runs the export already submitted, then lets its thread end.
+        }
+    }
+
+    /**
+     * Waits for every queued image of an export to be written, whether or not the export failed.
+     *
+     * @param   executor    Executor writing the images.
+     */
+    private static void finish(ExecutorService executor)
+    {
+        executor.shutdown();
+
+        try
+        {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        catch(InterruptedException e)
+        {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException("Export interrupted", e);
+        }
+    }
+
+    public int getTileSize() { return tileSize_; }
+}
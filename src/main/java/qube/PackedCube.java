@@ -0,0 +1,371 @@
+package qube;
+
+import qube.algorithm3x3.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Headless cube storing every sticker as a 3-bit color code in a single primitive array.
+ *
+ * <p>Faces are laid out in {@link Side} order, each in the same row-major order as {@link Face}.
+ * Rotations are always applied on the calling thread.</p>
+ */
+public class PackedCube implements ICube
+{
+    private static final int BITS = 3;
+    private static final int PER_WORD = Long.SIZE / BITS;
+    private static final long MASK = (1L << BITS) - 1;
+    private static final Color[] COLORS = Color.values();
+
+    private final int dimensions_;
+    private final long[] stickers_;
+    private final MoveTable moves_;
+    private volatile long fingerprint_;
+
+    /**
+     * Constructs a solved cube.
+     *
+     * @param   dimensions  Width and height of each face of the cube.
+     */
+    public PackedCube(int dimensions)
+    {
+        dimensions_ = dimensions;
+        moves_ = MoveTable.of(dimensions);
+
+        final int area = dimensions * dimensions;
+        stickers_ = new long[(area * 6 + PER_WORD - 1) / PER_WORD];
+
+        for(int i = 0; i < area * 6; ++i)
+        {
+            setCode(i, i / area);
+            fingerprint_ ^= Zobrist.key(i, i / area);
+        }
+    }
+
+    /**
+     * Constructs a copy of a state.
+     *
+     * @param   state   State to copy.
+     */
+    public PackedCube(CubeSnapshot state)
+    {
+        dimensions_ = state.getDimensions();
+        moves_ = MoveTable.of(dimensions_);
+
+        final int stickers = dimensions_ * dimensions_ * 6;
+        stickers_ = new long[(stickers + PER_WORD - 1) / PER_WORD];
+
+        long fingerprint = 0;
+        for(int i = 0; i < stickers; ++i)
+        {
+            final int code = state.getColor(i).ordinal();
+
+            setCode(i, code);
+            fingerprint ^= Zobrist.key(i, code);
+        }
+
+        fingerprint_ = fingerprint;
+    }
+
+    /**
+     * Scrambles a cube.
+     *
+     * @param   min         Minimum turns.
+     * @param   max         Maximum turns.
+     * @param   maxOffset   Maximum distance from face to rotate.
+     */
+    public void scramble(int min, int max, int maxOffset)
+    {
+        int num = min + (int)(Math.random() * (max - min + 1));
+
+        synchronized(stickers_)
+        {
+            for(int i = 0; i < num; ++i)
+            {
+                Side side = Side.values()[(int)(Math.random() * 6)];
+                int offset = (int)(Math.random() * Math.min(maxOffset, dimensions_));
+                boolean ccw = (int)(Math.random() * 2) == 1;
+
+                rotate(side, offset, ccw);
+            }
+        }
+    }
+
+    /**
+     * Gets the color at an index.
+     *
+     * @param   index   Index across the whole cube.
+     *
+     * @return          Color at the index.
+     */
+    private Color get(int index)
+    {
+        return COLORS[getCode(index)];
+    }
+
+    /**
+     * Gets the color code at an index.
+     *
+     * @param   index   Index across the whole cube.
+     *
+     * @return          Ordinal of the color at the index.
+     */
+    private int getCode(int index)
+    {
+        return (int)(stickers_[index / PER_WORD] >>> (index % PER_WORD * BITS) & MASK);
+    }
+
+    /**
+     * Sets the color code at an index.
+     *
+     * @param   index   Index across the whole cube.
+     * @param   code    Ordinal of the color to set.
+     */
+    private void setCode(int index, int code)
+    {
+        final int shift = index % PER_WORD * BITS;
+        final int word = index / PER_WORD;
+
+        stickers_[word] = stickers_[word] & ~(MASK << shift) | (long)code << shift;
+    }
+
+    @Override
+    public Future<Void> rotate(Side side, boolean ccw, int count, int offset)
+    {
+        rotateNow(side, ccw, count, offset);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public void rotateNow(Side side, boolean ccw, int count, int offset)
+    {
+        synchronized(stickers_)
+        {
+            for(int i = 0; i < count; ++i)
+            {
+                rotate(side, offset, ccw);
+            }
+        }
+    }
+
+    @Override
+    public Future<Void> rotate(Move... moves)
+    {
+        rotateNow(moves);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public void rotateNow(Move... moves)
+    {
+        synchronized(stickers_)
+        {
+            for(Move move : moves)
+            {
+                for(int i = 0; i < move.getCount(); ++i)
+                {
+                    rotate(move.getSide(), move.getOffset(), move.isCcw());
+                }
+            }
+        }
+    }
+
+    @Override
+    public Future<LocationSpace> find(ISearch search)
+    {
+        final List<Side> sides = Arrays.stream(Side.values()).collect(Collectors.toList());
+        final List<Location> locations = Arrays.stream(Location.values()).collect(Collectors.toList());
+
+        synchronized(stickers_)
+        {
+            Collections.shuffle(sides);
+            for(Side side : sides)
+            {
+                IFace face = getFace(side);
+
+                Collections.shuffle(locations);
+                for(Location location : locations)
+                {
+                    Color color = face.getColor(location);
+                    if(search.test(side, location, color))
+                    {
+                        return CompletableFuture.completedFuture(new LocationSpace(side, location, color));
+                    }
+                }
+            }
+        }
+
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public Future<List<LocationSpace>> findAll(ISearch search)
+    {
+        final List<Side> sides = Arrays.stream(Side.values()).collect(Collectors.toList());
+        final List<Location> locations = Arrays.stream(Location.values()).collect(Collectors.toList());
+
+        List<LocationSpace> spaces = new ArrayList<>();
+
+        synchronized(stickers_)
+        {
+            Collections.shuffle(sides);
+            for(Side side : sides)
+            {
+                IFace face = getFace(side);
+
+                Collections.shuffle(locations);
+                for(Location location : locations)
+                {
+                    Color color = face.getColor(location);
+                    if(search.test(side, location, color))
+                    {
+                        spaces.add(new LocationSpace(side, location, color));
+                    }
+                }
+            }
+        }
+
+        return CompletableFuture.completedFuture(spaces);
+    }
+
+    @Override
+    public Color[] getEdgeStrip(Side side, Side edge)
+    {
+        int[] indices = Cube.getEdgeStripIndices(dimensions_, side, edge);
+        Color[] colors = new Color[indices.length];
+
+        synchronized(stickers_)
+        {
+            for(int i = 0; i < indices.length; ++i)
+            {
+                colors[i] = get(indices[i]);
+            }
+        }
+
+        return colors;
+    }
+
+    @Override
+    public long getFingerprint()
+    {
+        return fingerprint_;
+    }
+
+    @Override
+    public CubeSnapshot snapshot()
+    {
+        synchronized(stickers_)
+        {
+            return CubeSnapshot.pack(dimensions_, this::getCode);
+        }
+    }
+
+    @Override
+    public IFace getFace(Side side)
+    {
+        return new PackedFace(side.ordinal() * dimensions_ * dimensions_);
+    }
+
+    @Override
+    public boolean isComplete()
+    {
+        final int area = dimensions_ * dimensions_;
+
+        synchronized(stickers_)
+        {
+            for(int i = 0; i < area * 6; ++i)
+            {
+                if(get(i) != get(i / area * area + area / 2))
+                {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Rotates a face.
+     *
+     * @param   side    The side to rotate.
+     * @param   offset  Offset from side.
+     * @param   ccw     Whether to rotate counterclockwise.
+     */
+    private void rotate(Side side, int offset, boolean ccw)
+    {
+        final int[] cycles = moves_.get(side, offset);
+        long delta = 0;
+
+        for(int i = 0; i < cycles.length; i += 4)
+        {
+            final int a = cycles[i], b = cycles[i + 1], c = cycles[i + 2], d = cycles[i + 3];
+            final int ca = getCode(a), cb = getCode(b), cc = getCode(c), cd = getCode(d);
+
+            if(!ccw)
+            {
+                setCode(a, cd);
+                setCode(b, ca);
+                setCode(c, cb);
+                setCode(d, cc);
+            }
+            else
+            {
+                setCode(a, cb);
+                setCode(b, cc);
+                setCode(c, cd);
+                setCode(d, ca);
+            }
+
+            delta ^= Zobrist.delta(a, ca, getCode(a))
+                    ^ Zobrist.delta(b, cb, getCode(b))
+                    ^ Zobrist.delta(c, cc, getCode(c))
+                    ^ Zobrist.delta(d, cd, getCode(d));
+        }
+
+        fingerprint_ ^= delta;
+    }
+
+    public int getDimensions() { return dimensions_; }
+
+    /**
+     * View of a single face of the packed state.
+     */
+    private class PackedFace implements IFace
+    {
+        private final int start_;
+
+        private PackedFace(int start)
+        {
+            start_ = start;
+        }
+
+        @Override
+        public Color getColor(Location location)
+        {
+            return get(start_ + Face.retrieveLocationIndex(dimensions_, location));
+        }
+
+        @Override
+        public boolean isSolid()
+        {
+            final Color base = getColor(Location.CENTER);
+
+            for(int i = 0; i < dimensions_ * dimensions_; ++i)
+            {
+                if(get(start_ + i) != base)
+                {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+}
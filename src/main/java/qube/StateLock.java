@@ -0,0 +1,137 @@
+package qube;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Guards cube state with an exclusive write lock and versioned reads that never block.
+ *
+ * <p>A read runs optimistically and is retried if a write happened while it ran, like a seqlock. Reads may therefore
+ * run more than once and must not have side effects.</p>
+ */
+final class StateLock
+{
+    private final StampedLock lock_ = new StampedLock();
+
+    /**
+     * Reads a consistent value.
+     *
+     * @param   reader  Reads the value.
+     * @param   <T>     Type of the value.
+     *
+     * @return          Value read without a write in between.
+     */
+    <T> T read(Supplier<T> reader)
+    {
+        while(true)
+        {
+            final long stamp = lock_.tryOptimisticRead();
+            if(stamp != 0)
+            {
+                try
+                {
+                    T value = reader.get();
+                    if(lock_.validate(stamp))
+                    {
+                        return value;
+                    }
+                }
+                catch(RuntimeException e)
+                {
+                    if(lock_.validate(stamp))   // Only failures caused by a torn read are retried.
+                    {
+                        throw e;
+                    }
+                }
+            }
+
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Reads a consistent condition.
+     *
+     * @param   reader  Reads the condition.
+     *
+     * @return          Condition read without a write in between.
+     */
+    boolean test(BooleanSupplier reader)
+    {
+        return read(reader::getAsBoolean);
+    }
+
+    /**
+     * Starts a read inline, for hot paths that cannot afford a reader object per call.
+     *
+     * <p>The read must be retried from here until {@link #validate} accepts the stamp.</p>
+     *
+     * @return  Stamp of the read, or {@code 0} while a write is in progress.
+     */
+    long begin()
+    {
+        return lock_.tryOptimisticRead();
+    }
+
+    /**
+     * Checks that no write happened since a read began.
+     *
+     * @param   stamp   Stamp from {@link #begin}.
+     *
+     * @return          Whether the values read are consistent.
+     */
+    boolean validate(long stamp)
+    {
+        if(stamp != 0 && lock_.validate(stamp))
+        {
+            return true;
+        }
+
+        Thread.yield();
+        return false;
+    }
+
+    /**
+     * Starts a write inline, for hot paths that cannot afford a writer object per call.
+     *
+     * <p>Must be followed by {@link #unlockWrite} in a {@code finally} block, and not called from within a read.</p>
+     *
+     * @return  Stamp to unlock with.
+     */
+    long lockWrite()
+    {
+        return lock_.writeLock();
+    }
+
+    /**
+     * Ends a write started by {@link #lockWrite}.
+     *
+     * @param   stamp   Stamp from {@link #lockWrite}.
+     */
+    void unlockWrite(long stamp)
+    {
+        lock_.unlockWrite(stamp);
+    }
+
+    /**
+     * Changes state, excluding every other write and invalidating reads in progress.
+     *
+     * <p>Must not be called from within a read.</p>
+     *
+     * @param   writer  Changes the state.
+     */
+    void write(Runnable writer)
+    {
+        final long stamp = lock_.writeLock();
+
+        try
+        {
+            writer.run();
+        }
+        finally
+        {
+            lock_.unlockWrite(stamp);
+        }
+    }
+}
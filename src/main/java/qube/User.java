@@ -3,13 +3,16 @@ package qube;
 import processing.core.PConstants;
 import qube.algorithm3x3.Algorithm3x3;
 
+import java.util.Random;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class User
 {
     private final Cube cube_;
     private boolean ccw_ = false;
+    private boolean planned_ = true;
     private final Algorithm3x3 algorithm_;
     private Future<Void> future_;
 
@@ -34,6 +37,10 @@ public class User
         {
             cube_.scramble(2500, 5000, 0);
         }
+        else if(key == 'p')
+        {
+            planned_ = !planned_;
+        }
 
         if(future_ == null || future_.isDone())
         {
@@ -58,11 +65,25 @@ public class User
                 future_ = cube_.rotate(Side.LEFT, ccw_, 1);
                 break;
             case ' ':
-                future_ = algorithm_.solve();
+                future_ = planned_ ? algorithm_.solvePlanned() : algorithm_.solve();
                 break;
             case '.':
                 future_ = StressBox.test(128, () -> new Cube(3, false));
                 break;
+            case ',':
+                future_ = BatchSolver.test(1024, Runtime.getRuntime().availableProcessors(), () ->
+                {
+                    Random random = ThreadLocalRandom.current();
+                    PackedCube cube = new PackedCube(3);
+
+                    for(int i = 20 + random.nextInt(21); i > 0; --i)
+                    {
+                        cube.rotateNow(Side.values()[random.nextInt(6)], random.nextBoolean(), 1);
+                    }
+
+                    return cube;
+                }, Algorithm3x3.Method.values());
+                break;
             }
         }
     }
@@ -0,0 +1,42 @@
+package qube;
+
+/**
+ * Zobrist keys for fingerprinting cube states.
+ *
+ * <p>Keys are derived from the sticker index and color instead of being stored, so cubes of any dimensions share
+ * them without a table.</p>
+ */
+final class Zobrist
+{
+    private Zobrist() {}
+
+    /**
+     * Gets the key of a color at an index.
+     *
+     * @param   index   Index across the whole cube.
+     * @param   code    Ordinal of the color.
+     *
+     * @return          Pseudo-random key.
+     */
+    static long key(int index, int code)
+    {
+        long z = ((long)index << 3 | code) * 0x9E3779B97F4A7C15L + 0x632BE59BD9B4E019L;    // SplitMix64 finalizer.
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Gets the change in fingerprint from recoloring an index.
+     *
+     * @param   index   Index across the whole cube.
+     * @param   from    Ordinal of the previous color.
+     * @param   to      Ordinal of the new color.
+     *
+     * @return          Value to XOR into the fingerprint.
+     */
+    static long delta(int index, int from, int to)
+    {
+        return from == to ? 0 : key(index, from) ^ key(index, to);
+    }
+}
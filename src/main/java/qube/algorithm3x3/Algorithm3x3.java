@@ -1,20 +1,118 @@
 package qube.algorithm3x3;
 
 import qube.Color;
+import qube.CubeSnapshot;
 import qube.LocationSpace;
+import qube.PackedCube;
 import qube.Side;
 
+import java.util.Arrays;
 import java.util.concurrent.*;
-import java.util.function.BooleanSupplier;
+import java.util.function.ObjLongConsumer;
 import java.util.function.Predicate;
 
 public class Algorithm3x3 implements Runnable
 {
+    private static final Move[] STAR = {
+            new Move(Side.FRONT, false, 1),
+            new Move(Side.LEFT, false, 1),
+            new Move(Side.DOWN, false, 1),
+            new Move(Side.LEFT, true, 1),
+            new Move(Side.DOWN, true, 1),
+            new Move(Side.FRONT, true, 1)
+    };
+
+    private static final Move[] DOWN_SIDE = {
+            new Move(Side.LEFT, false, 1),
+            new Move(Side.DOWN, false, 1),
+            new Move(Side.LEFT, true, 1),
+            new Move(Side.DOWN, false, 1),
+            new Move(Side.LEFT, false, 1),
+            new Move(Side.DOWN, false, 2),
+            new Move(Side.LEFT, true, 1)
+    };
+
+    private static final Move[] BACK_CORNER = {
+            new Move(Side.LEFT, true, 1),
+            new Move(Side.FRONT, false, 1),
+            new Move(Side.LEFT, true, 1),
+            new Move(Side.BACK, false, 2),
+            new Move(Side.LEFT, false, 1),
+            new Move(Side.FRONT, true, 1),
+            new Move(Side.LEFT, true, 1),
+            new Move(Side.BACK, false, 2),
+            new Move(Side.LEFT, false, 2)
+    };
+
+    private static final Move[] CYCLE_EDGES = {
+            new Move(Side.LEFT, false, 1),
+            new Move(Side.DOWN, true, 1),
+            new Move(Side.LEFT, false, 1),
+            new Move(Side.DOWN, false, 1),
+            new Move(Side.LEFT, false, 1),
+            new Move(Side.DOWN, false, 1),
+            new Move(Side.LEFT, false, 1),
+            new Move(Side.DOWN, true, 1),
+            new Move(Side.LEFT, true, 1),
+            new Move(Side.DOWN, true, 1),
+            new Move(Side.LEFT, false, 2)
+    };
+
+    private static final Side[] SIDE_FACES = { Side.FRONT, Side.RIGHT, Side.BACK, Side.LEFT };
+
+    /**
+     * Way of solving the down layer once the first two layers are done.
+     */
+    public enum Method
+    {
+        /** Edges, then orientation, corners and edges, each by repeating one algorithm. */
+        BEGINNER,
+        /** One orientation and one permutation algorithm looked up by case, see {@link LastLayer}. */
+        CFOP
+    }
+
+    /**
+     * Step of a solve, reported to listeners once done.
+     */
+    public enum Phase
+    {
+        DAISY_FLIP,
+        WHITE_CORNER,
+        SIDE_EDGE_SOLVER,
+        STAR,
+        DOWN_SIDE,
+        COMPLETE_SOLVER,
+        HEADLIGHTS,
+        ORIENT,
+        PERMUTE
+    }
+
     private final ICube cube_;
+    private final Method method_;
+    private final ObjLongConsumer<Phase> listener_;
 
     public Algorithm3x3(ICube cube)
+    {
+        this(cube, Method.CFOP);
+    }
+
+    public Algorithm3x3(ICube cube, Method method)
+    {
+        this(cube, method, (phase, nanos) -> {});
+    }
+
+    /**
+     * Constructs a solver reporting the time taken by every phase.
+     *
+     * @param   cube        Cube to solve.
+     * @param   method      Way of solving the last layer.
+     * @param   listener    Called on the solving thread after each phase with the nanoseconds it took.
+     */
+    public Algorithm3x3(ICube cube, Method method, ObjLongConsumer<Phase> listener)
     {
         cube_ = cube;
+        method_ = method;
+        listener_ = listener;
     }
 
     /**
@@ -27,6 +125,119 @@ public class Algorithm3x3 implements Runnable
         return CompletableFuture.runAsync(this);
     }
 
+    /**
+     * Solves a copy of the cube, leaving the cube untouched.
+     *
+     * <p>The copy is a {@link PackedCube}, so planning never waits on an animation.</p>
+     *
+     * @return  Future of the moves solving the cube.
+     */
+    public Future<Move[]> plan()
+    {
+        return CompletableFuture.supplyAsync(this::record);
+    }
+
+    /**
+     * Solves the cube by planning on a copy, then applying every move as a single batch.
+     *
+     * @return  Future of solve, completing once the moves have been applied and, if animated, played.
+     */
+    public Future<Void> solvePlanned()
+    {
+        return CompletableFuture.runAsync(() ->
+        {
+            try
+            {
+                cube_.rotate(record()).get();
+            }
+            catch(ExecutionException | InterruptedException e)
+            {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * Solves a copy of the cube's current state.
+     *
+     * @return  Moves made solving the copy, shortened by {@link MoveOptimizer}.
+     */
+    private Move[] record()
+    {
+        CubeSnapshot state = cube_.snapshot();
+
+        RecordingCube shadow = new RecordingCube(new PackedCube(state));
+        new Algorithm3x3(shadow, method_).run();
+
+        return MoveOptimizer.optimize(state.getDimensions(), shadow.getMoves());
+    }
+
+    /**
+     * Turns the outer layer of a side clockwise just far enough for a condition to hold.
+     *
+     * @param   condition   Condition on the cube after turning.
+     * @param   side        Side to turn.
+     *
+     * @return              Whether any number of quarter turns makes the condition hold.
+     */
+    private boolean align(Predicate<IReadOnlyCube> condition, Side side)
+    {
+        return align(condition, side, 0);
+    }
+
+    /**
+     * Fails a step that could not turn the cube into the position it needs.
+     *
+     * @param   aligned Whether {@link #align} made the condition hold.
+     * @param   step    Name of the step.
+     */
+    private static void require(boolean aligned, String step)
+    {
+        if(!aligned)
+        {
+            throw new IllegalStateException(step + " step found no turn that lines the cube up");
+        }
+    }
+
+    /**
+     * Turns layers clockwise just far enough for a condition to hold.
+     *
+     * <p>Every number of quarter turns is tried on a snapshot first, so the layers are turned at most once.</p>
+     *
+     * @param   condition   Condition on the cube after turning.
+     * @param   side        Side the layers are offset from.
+     * @param   offsets     Offsets of the layers turning together.
+     *
+     * @return              Whether any number of quarter turns makes the condition hold.
+     */
+    private boolean align(Predicate<IReadOnlyCube> condition, Side side, int... offsets)
+    {
+        final CubeSnapshot state = cube_.snapshot();
+
+        for(int turns = 0; turns < 4; ++turns)
+        {
+            CubeSnapshot turned = state;
+            for(int offset : offsets)
+            {
+                turned = turned.apply(side, false, turns, offset);
+            }
+
+            if(condition.test(turned))
+            {
+                Move[] moves = new Move[turns == 0 ? 0 : offsets.length];
+                for(int i = 0; i < moves.length; ++i)
+                {
+                    moves[i] = new Move(side, turns == 3, turns == 3 ? 1 : turns, offsets[i]);
+                }
+
+                cube_.rotateNow(moves);
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     /**
      * Perform the daisy step.
      *
@@ -37,8 +248,7 @@ public class Algorithm3x3 implements Runnable
         // The typical color is white, but its possible that the center has been rotated in some way.
         final Color white = cube_.getFace(Side.UP).getColor(Location.CENTER);
 
-        ISearch daisy = (side, location, color) ->
-                side != Side.DOWN && location.getMinor() == Location.Minor.EDGE && color == white;
+        SearchQuery daisy = SearchQuery.select().color(white).minor(Location.Minor.EDGE).notOn(Side.DOWN).build();
 
         LocationSpace ls;
         while((ls = cube_.find(daisy).get()) != null)
@@ -46,45 +256,32 @@ public class Algorithm3x3 implements Runnable
             if(ls.getSide() == Side.UP)
             {
                 Location loc = ls.getLocation().opposite(Side.UP);
-
-                IFace down = cube_.getFace(Side.DOWN);
-                while(down.getColor(loc) == white)  // While there is a color in the new position.
-                {
-                    cube_.rotate(Side.DOWN, false, 1).get();
-                }
+                require(align(cube -> cube.getFace(Side.DOWN).getColor(loc) != white, Side.DOWN), "Daisy");  // Free it.
 
                 Side side = Location.getEdgeOuterSide(ls.getSide(), ls.getLocation());
-                cube_.rotate(side, false, 2).get();
+                cube_.rotateNow(side, false, 2);
             }
             else
             {
                 Side side = ls.getLocation() != Location.RIGHT && ls.getLocation() != Location.LEFT
                         ? ls.getSide() : Location.getEdgeOuterSide(ls.getSide(), ls.getLocation());
 
-                while(cube_.getEdgeStrip(side, Side.DOWN)[1] == white)
-                {
-                    cube_.rotate(Side.DOWN, false, 1).get();
-                }
+                require(align(cube -> cube.getEdgeStrip(side, Side.DOWN)[1] != white, Side.DOWN), "Daisy");
 
-                cube_.rotate(side, false, 1).get();
+                cube_.rotateNow(side, false, 1);
             }
         }
 
-        ISearch flip = (side, location, color) ->
-                side == Side.DOWN && location.getMinor() == Location.Minor.EDGE && color == white;
+        SearchQuery flip = SearchQuery.select().color(white).minor(Location.Minor.EDGE).on(Side.DOWN).build();
 
         while((ls = cube_.find(flip).get()) != null)
         {
             Side side = Location.getEdgeOuterSide(ls.getSide(), ls.getLocation());
-            IFace face = cube_.getFace(side);
 
-            while(face.getColor(Location.CENTER) != face.getColor(Location.BOTTOM))
-            {
-                cube_.rotate(Side.UP, false, 1).get();
-                cube_.rotate(Side.UP, false, 1, 1).get();
-            }
+            require(align(cube -> cube.getFace(side).getColor(Location.CENTER)
+                    == cube.getFace(side).getColor(Location.BOTTOM), Side.UP, 0, 1), "Daisy flip");
 
-            cube_.rotate(side, false, 2).get();
+            cube_.rotateNow(side, false, 2);
         }
     }
 
@@ -97,13 +294,8 @@ public class Algorithm3x3 implements Runnable
     {
         final Color white = cube_.getFace(Side.UP).getColor(Location.CENTER);
 
-        ISearch search = (side, location, color) ->
+        ISearch misplaced = (side, location, color) ->
         {
-            if(location.getMinor() != Location.Minor.CORNER || color != white)
-            {
-                return false;
-            }
-
             LocationSpace rotated = new LocationSpace(side, location, color);
 
             for(int i = 0; i < 2; ++i)  // Checking if the corner is in the right place.
@@ -120,6 +312,8 @@ public class Algorithm3x3 implements Runnable
             return false;
         };
 
+        SearchQuery search = SearchQuery.select().color(white).minor(Location.Minor.CORNER).where(misplaced).build();
+
         LocationSpace ls;
         while((ls = cube_.find(search).get()) != null)
         {
@@ -128,21 +322,21 @@ public class Algorithm3x3 implements Runnable
                 Side rot = ls.rotateCorner().getSide();
                 boolean ccw = ls.getSide() == Side.UP;
 
-                cube_.rotate(rot, ccw, 1).get();
-                cube_.rotate(Side.DOWN, false, 1).get();
-                cube_.rotate(rot, !ccw, 1).get();
+                cube_.rotateNow(rot, ccw, 1);
+                cube_.rotateNow(Side.DOWN, false, 1);
+                cube_.rotateNow(rot, !ccw, 1);
             }
             else if(ls.rotateCorner().getSide() == Side.UP)
             {
-                cube_.rotate(ls.getSide(), false, 1).get();
-                cube_.rotate(Side.DOWN, false, 2).get();
-                cube_.rotate(ls.getSide(), true, 1).get();
+                cube_.rotateNow(ls.getSide(), false, 1);
+                cube_.rotateNow(Side.DOWN, false, 2);
+                cube_.rotateNow(ls.getSide(), true, 1);
             }
             else if(ls.rotateCorner().rotateCorner().getSide() == Side.UP)
             {
-                cube_.rotate(ls.getSide(), true, 1).get();
-                cube_.rotate(Side.DOWN, true, 1).get();
-                cube_.rotate(ls.getSide(), false, 1).get();
+                cube_.rotateNow(ls.getSide(), true, 1);
+                cube_.rotateNow(Side.DOWN, true, 1);
+                cube_.rotateNow(ls.getSide(), false, 1);
             }
             else
             {
@@ -152,25 +346,23 @@ public class Algorithm3x3 implements Runnable
                     rotated = rotated.rotateCorner();
                 }
 
-                Color find = rotated.determineColor(cube_);
-                while(cube_.getFace(rotated.getSide()).getColor(Location.CENTER) != find)
-                {
-                    cube_.rotate(Side.UP, false, 1).get();
-                    cube_.rotate(Side.UP, false, 1, 1).get();
-                }
+                final Side target = rotated.getSide();
+                final Color find = rotated.determineColor(cube_);
+                require(align(cube -> cube.getFace(target).getColor(Location.CENTER) == find, Side.UP, 0, 1),
+                        "White corner");
 
                 if(ls.getLocation().sideCorner() == Location.LEFT)
                 {
-                    cube_.rotate(ls.getSide(), true, 1).get();
-                    cube_.rotate(Side.DOWN, true, 1).get();
-                    cube_.rotate(ls.getSide(), false, 1).get();
+                    cube_.rotateNow(ls.getSide(), true, 1);
+                    cube_.rotateNow(Side.DOWN, true, 1);
+                    cube_.rotateNow(ls.getSide(), false, 1);
                 }
                 else
                 {
-                    cube_.rotate(Side.DOWN, true, 1).get();
-                    cube_.rotate(rotated.getSide(), true, 1).get();
-                    cube_.rotate(Side.DOWN, false, 1).get();
-                    cube_.rotate(rotated.getSide(), false, 1).get();
+                    cube_.rotateNow(Side.DOWN, true, 1);
+                    cube_.rotateNow(rotated.getSide(), true, 1);
+                    cube_.rotateNow(Side.DOWN, false, 1);
+                    cube_.rotateNow(rotated.getSide(), false, 1);
                 }
             }
         }
@@ -185,28 +377,24 @@ public class Algorithm3x3 implements Runnable
     {
         final Color yellow = cube_.getFace(Side.DOWN).getColor(Location.CENTER);
 
-        ISearch search = (side, location, color) -> side == Side.DOWN
-                && location.getMinor() == Location.Minor.EDGE
-                && color != yellow
-                && new LocationSpace(side, location, color).flipEdge().determineColor(cube_) != yellow;
+        SearchQuery search = SearchQuery.select().on(Side.DOWN).minor(Location.Minor.EDGE)
+                .notColor(yellow).withoutNeighbor(yellow).build();
 
-        ISearch incorrect = (side, location, color) ->
-        {
-            LocationSpace space = new LocationSpace(side, location, color);
-            for(int i = 0; i < 2; ++i)  // Used to test both sides of the edge.
-            {
-                if(space.getSide() == Side.DOWN || space.getSide() == Side.UP || space.getLocation().getMinor() != Location.Minor.EDGE)
+        SearchQuery incorrect = SearchQuery.select().minor(Location.Minor.EDGE).notOn(Side.DOWN, Side.UP)
+                .where((side, location, color) ->
                 {
-                    return false;
-                }
+                    LocationSpace space = new LocationSpace(side, location, color).flipEdge();
+                    if(space.getSide() == Side.DOWN || space.getSide() == Side.UP)  // Other side of the edge.
+                    {
+                        return false;
+                    }
 
-                space = space.flipEdge();
-            }
+                    Color other = space.determineColor(cube_);
 
-            return color == yellow || space.determineColor(cube_) == yellow
-                    || color != cube_.getFace(side).getColor(Location.CENTER)
-                    || space.determineColor(cube_) != cube_.getFace(space.getSide()).getColor(Location.CENTER);
-        };
+                    return color == yellow || other == yellow
+                            || color != cube_.getFace(side).getColor(Location.CENTER)
+                            || other != cube_.getFace(space.getSide()).getColor(Location.CENTER);
+                }).build();
 
         while(true)
         {
@@ -214,28 +402,26 @@ public class Algorithm3x3 implements Runnable
             while((ls = cube_.find(search).get()) != null)
             {
                 LocationSpace flip = ls.flipEdge();
-                Color find = flip.determineColor(cube_);
+                final Color find = flip.determineColor(cube_);
 
-                while(cube_.getFace(flip.getSide()).getColor(Location.CENTER) != find)
-                {
-                    cube_.rotate(Side.UP, false, 1).get();
-                    cube_.rotate(Side.UP, false, 1, 1).get();
-                }
+                require(align(cube -> cube.getFace(flip.getSide()).getColor(Location.CENTER) == find, Side.UP, 0, 1),
+                        "Side edge");
 
                 boolean sameColorIsClockwise =
                         cube_.getFace(flip.getSide().move(Side.RIGHT)).getColor(Location.CENTER) == ls.getColor();
 
                 Side opposite = flip.getSide().move(sameColorIsClockwise ? Side.RIGHT : Side.LEFT);
 
-                cube_.rotate(Side.DOWN, sameColorIsClockwise, 1).get();
-                cube_.rotate(opposite, sameColorIsClockwise, 1).get();
-                cube_.rotate(Side.DOWN, !sameColorIsClockwise, 1).get();
-                cube_.rotate(opposite, !sameColorIsClockwise, 1).get();
+                cube_.rotateNow(
+                        new Move(Side.DOWN, sameColorIsClockwise, 1),
+                        new Move(opposite, sameColorIsClockwise, 1),
+                        new Move(Side.DOWN, !sameColorIsClockwise, 1),
+                        new Move(opposite, !sameColorIsClockwise, 1),
 
-                cube_.rotate(Side.DOWN, !sameColorIsClockwise, 1).get();
-                cube_.rotate(flip.getSide(), !sameColorIsClockwise, 1).get();
-                cube_.rotate(Side.DOWN, sameColorIsClockwise, 1).get();
-                cube_.rotate(flip.getSide(), sameColorIsClockwise, 1).get();
+                        new Move(Side.DOWN, !sameColorIsClockwise, 1),
+                        new Move(flip.getSide(), !sameColorIsClockwise, 1),
+                        new Move(Side.DOWN, sameColorIsClockwise, 1),
+                        new Move(flip.getSide(), sameColorIsClockwise, 1));
             }
 
             boolean changed = false;
@@ -246,14 +432,15 @@ public class Algorithm3x3 implements Runnable
                     ls = ls.flipEdge();
                 }
 
-                cube_.rotate(ls.flipEdge().getSide(), true, 1).get();
-                cube_.rotate(Side.DOWN, false, 1).get();
-                cube_.rotate(ls.flipEdge().getSide(), false, 1).get();
+                cube_.rotateNow(
+                        new Move(ls.flipEdge().getSide(), true, 1),
+                        new Move(Side.DOWN, false, 1),
+                        new Move(ls.flipEdge().getSide(), false, 1),
 
-                cube_.rotate(Side.DOWN, false, 1).get();
-                cube_.rotate(ls.getSide(), false, 1).get();
-                cube_.rotate(Side.DOWN, true, 1).get();
-                cube_.rotate(ls.getSide(), true, 1).get();
+                        new Move(Side.DOWN, false, 1),
+                        new Move(ls.getSide(), false, 1),
+                        new Move(Side.DOWN, true, 1),
+                        new Move(ls.getSide(), true, 1));
 
                 changed = true;
             }
@@ -282,20 +469,10 @@ public class Algorithm3x3 implements Runnable
                         ? ds -> ds.north() && ds.west()
                         : ds -> ds.east() && ds.west();
 
-                DownShape wtf;
-                while(!valid.test(wtf = new DownShape(cube_)))
-                {
-                    cube_.rotate(Side.DOWN, false, 1).get();
-                }
+                require(align(cube -> valid.test(new DownShape(cube)), Side.DOWN), "Star");
             }
 
-            cube_.rotate(Side.FRONT, false, 1).get();
-            cube_.rotate(Side.LEFT, false, 1).get();
-            cube_.rotate(Side.DOWN, false, 1).get();
-
-            cube_.rotate(Side.LEFT, true, 1).get();
-            cube_.rotate(Side.DOWN, true, 1).get();
-            cube_.rotate(Side.FRONT, true, 1).get();
+            cube_.rotateNow(STAR);
         }
     }
 
@@ -314,45 +491,27 @@ public class Algorithm3x3 implements Runnable
             switch(corner.determineFormation())
             {
             case NONE:
-                final BooleanSupplier test = () -> (cube_.getFace(Side.BACK).getColor(Location.BOTTOM_RIGHT) == yellow
-                        && cube_.getFace(Side.RIGHT).getColor(Location.BOTTOM_LEFT) == yellow
-                        && cube_.getFace(Side.RIGHT).getColor(Location.BOTTOM_RIGHT) == yellow
-                        && cube_.getFace(Side.FRONT).getColor(Location.BOTTOM_LEFT) == yellow)
-                        || (cube_.getFace(Side.LEFT).getColor(Location.BOTTOM_LEFT) == yellow
-                        && cube_.getFace(Side.LEFT).getColor(Location.BOTTOM_RIGHT) == yellow
-                        && cube_.getFace(Side.RIGHT).getColor(Location.BOTTOM_LEFT) == yellow
-                        && cube_.getFace(Side.RIGHT).getColor(Location.BOTTOM_RIGHT) == yellow);
-
-                while(!test.getAsBoolean())
-                {
-                    cube_.rotate(Side.DOWN, false, 1).get();
-                }
+                require(align(cube -> (cube.getFace(Side.BACK).getColor(Location.BOTTOM_RIGHT) == yellow
+                        && cube.getFace(Side.RIGHT).getColor(Location.BOTTOM_LEFT) == yellow
+                        && cube.getFace(Side.RIGHT).getColor(Location.BOTTOM_RIGHT) == yellow
+                        && cube.getFace(Side.FRONT).getColor(Location.BOTTOM_LEFT) == yellow)
+                        || (cube.getFace(Side.LEFT).getColor(Location.BOTTOM_LEFT) == yellow
+                        && cube.getFace(Side.LEFT).getColor(Location.BOTTOM_RIGHT) == yellow
+                        && cube.getFace(Side.RIGHT).getColor(Location.BOTTOM_LEFT) == yellow
+                        && cube.getFace(Side.RIGHT).getColor(Location.BOTTOM_RIGHT) == yellow), Side.DOWN),
+                        "Down side");
                 break;
             case TWO_LINE:
-                final BooleanSupplier supplier = () -> (cube_.getFace(Side.RIGHT).getColor(Location.BOTTOM_RIGHT) == yellow
-                    && cube_.getFace(Side.RIGHT).getColor(Location.BOTTOM_LEFT) == yellow)
-                        || cube_.getFace(Side.FRONT).getColor(Location.BOTTOM_RIGHT) == yellow;
-
-                while(!supplier.getAsBoolean())
-                {
-                    cube_.rotate(Side.DOWN, false, 1).get();
-                }
+                require(align(cube -> (cube.getFace(Side.RIGHT).getColor(Location.BOTTOM_RIGHT) == yellow
+                        && cube.getFace(Side.RIGHT).getColor(Location.BOTTOM_LEFT) == yellow)
+                        || cube.getFace(Side.FRONT).getColor(Location.BOTTOM_RIGHT) == yellow, Side.DOWN), "Down side");
                 break;
             case ONE:
-                while(!(new DownCorner(cube_).northEast()))
-                {
-                    cube_.rotate(Side.DOWN, false, 1).get();
-                }
+                require(align(cube -> new DownCorner(cube).northEast(), Side.DOWN), "Down side");
                 break;
             }
 
-            cube_.rotate(Side.LEFT, false, 1).get();
-            cube_.rotate(Side.DOWN, false, 1).get();
-            cube_.rotate(Side.LEFT, true, 1).get();
-            cube_.rotate(Side.DOWN, false, 1).get();
-            cube_.rotate(Side.LEFT, false, 1).get();
-            cube_.rotate(Side.DOWN, false, 2).get();
-            cube_.rotate(Side.LEFT, true, 1).get();
+            cube_.rotateNow(DOWN_SIDE);
         }
     }
 
@@ -361,17 +520,9 @@ public class Algorithm3x3 implements Runnable
      *
      * @param   cube    Cube to operate on.
      */
-    private void backCornerAlgorithm(ICube cube) throws ExecutionException, InterruptedException
+    private void backCornerAlgorithm(ICube cube)
     {
-        cube.rotate(Side.LEFT, true, 1).get();
-        cube.rotate(Side.FRONT, false, 1).get();
-        cube.rotate(Side.LEFT, true, 1).get();
-        cube.rotate(Side.BACK, false, 2).get();
-        cube.rotate(Side.LEFT, false, 1).get();
-        cube.rotate(Side.FRONT, true, 1).get();
-        cube.rotate(Side.LEFT, true, 1).get();
-        cube.rotate(Side.BACK, false, 2).get();
-        cube.rotate(Side.LEFT, false, 2).get();
+        cube.rotateNow(BACK_CORNER);
     }
 
     /**
@@ -381,35 +532,23 @@ public class Algorithm3x3 implements Runnable
      */
     private void completeSolver() throws ExecutionException, InterruptedException
     {
-        ISearch search = (side, location, color) -> location.getMinor() == Location.Minor.CENTER
-                && side != Side.DOWN && side != Side.UP
-                && cube_.getFace(side).getColor(Location.BOTTOM_LEFT) == color
-                && cube_.getFace(side).getColor(Location.BOTTOM_RIGHT) == color;
+        SearchQuery search = SearchQuery.select().minor(Location.Minor.CENTER).notOn(Side.DOWN, Side.UP)
+                .where((side, location, color) -> cube_.getFace(side).getColor(Location.BOTTOM_LEFT) == color
+                        && cube_.getFace(side).getColor(Location.BOTTOM_RIGHT) == color).build();
 
-        LocationSpace ls;
-        boolean repeat;
-
-        do
+        Predicate<IReadOnlyCube> headlight = cube -> Arrays.stream(SIDE_FACES).anyMatch(side ->
         {
-            repeat = false;
-            int timeout = 0;
-
-            while((ls = cube_.find(search).get()) == null)
-            {
-                cube_.rotate(Side.DOWN, false, 1).get();
+            IFace face = cube.getFace(side);
+            return face.getColor(Location.BOTTOM_LEFT) == face.getColor(Location.CENTER)
+                    && face.getColor(Location.BOTTOM_RIGHT) == face.getColor(Location.CENTER);
+        });
 
-                if(++timeout > 8)
-                {
-                    repeat = true;
-                    break;
-                }
-            }
+        while(!align(headlight, Side.DOWN))
+        {
+            backCornerAlgorithm(cube_);
+        }
 
-            if(repeat)
-            {
-                backCornerAlgorithm(cube_);
-            }
-        } while(repeat);
+        LocationSpace ls = cube_.find(search).get();
 
         if(cube_.findAll(search).get().size() == 1)
         {
@@ -424,19 +563,9 @@ public class Algorithm3x3 implements Runnable
      *
      * @param   cube    Cube to rotate the edges of.
      */
-    private void cycleEdges(ICube cube) throws ExecutionException, InterruptedException
+    private void cycleEdges(ICube cube)
     {
-        cube.rotate(Side.LEFT, false, 1).get();
-        cube.rotate(Side.DOWN, true, 1).get();
-        cube.rotate(Side.LEFT, false, 1).get();
-        cube.rotate(Side.DOWN, false, 1).get();
-        cube.rotate(Side.LEFT, false, 1).get();
-        cube.rotate(Side.DOWN, false, 1).get();
-        cube.rotate(Side.LEFT, false, 1).get();
-        cube.rotate(Side.DOWN, true, 1).get();
-        cube.rotate(Side.LEFT, true, 1).get();
-        cube.rotate(Side.DOWN, true, 1).get();
-        cube.rotate(Side.LEFT, false, 2).get();
+        cube.rotateNow(CYCLE_EDGES);
     }
 
     /**
@@ -446,24 +575,37 @@ public class Algorithm3x3 implements Runnable
      */
     private void headlights() throws ExecutionException, InterruptedException
     {
-        ISearch search = (side, location, color) -> location.getMinor() == Location.Minor.EDGE
-                && new LocationSpace(side, location, color).flipEdge().getSide() == Side.DOWN
-                && cube_.getFace(side).getColor(Location.BOTTOM_LEFT) == color;
+        ISearch downEdge = (side, location, color) ->
+                new LocationSpace(side, location, color).flipEdge().getSide() == Side.DOWN;
+
+        SearchQuery search = SearchQuery.select().minor(Location.Minor.EDGE).where(downEdge)
+                .where((side, location, color) -> cube_.getFace(side).getColor(Location.BOTTOM_LEFT) == color).build();
 
         if(cube_.find(search).get() == null)
         {
             cycleEdges(cube_);
         }
 
-        ISearch lineupSearch = (side, location, color) -> location.getMinor() == Location.Minor.EDGE
-                && new LocationSpace(side, location, color).flipEdge().getSide() == Side.DOWN
-                && cube_.getFace(side).getColor(Location.CENTER) == color
-                && cube_.getFace(side).getColor(Location.BOTTOM_LEFT) == color;
+        SearchQuery lineupSearch = SearchQuery.select().minor(Location.Minor.EDGE).where(downEdge)
+                .where((side, location, color) -> cube_.getFace(side).getColor(Location.CENTER) == color
+                        && cube_.getFace(side).getColor(Location.BOTTOM_LEFT) == color).build();
 
-        LocationSpace ls;
-        while((ls = cube_.find(lineupSearch).get()) == null)
+        Predicate<IReadOnlyCube> lineup = cube -> Arrays.stream(SIDE_FACES).anyMatch(side ->
         {
-            cube_.rotate(Side.DOWN, false, 1).get();
+            IFace face = cube.getFace(side);
+            return face.getColor(Location.BOTTOM) == face.getColor(Location.CENTER)
+                    && face.getColor(Location.BOTTOM_LEFT) == face.getColor(Location.CENTER);
+        });
+
+        while(!align(lineup, Side.DOWN))
+        {
+            cycleEdges(cube_);
+        }
+
+        LocationSpace ls = cube_.find(lineupSearch).get();
+        if(ls == null)
+        {
+            throw new IllegalStateException("Headlights found no edge lined up with its center");
         }
 
         ICube remapped = SideRemappedCube.bind(cube_).rebase(Side.BACK, ls.getSide()).build();
@@ -475,18 +617,63 @@ public class Algorithm3x3 implements Runnable
         }
     }
 
+    /**
+     * Reports a finished phase.
+     *
+     * @param   phase   Phase finished.
+     * @param   start   Time the phase started, from {@link System#nanoTime()}.
+     *
+     * @return          Time the phase finished.
+     */
+    private long lap(Phase phase, long start)
+    {
+        final long now = System.nanoTime();
+        listener_.accept(phase, now - start);
+
+        return now;
+    }
+
     @Override
     public void run()
     {
         try
         {
+            long time = System.nanoTime();
+
             daisyFlip();
+            time = lap(Phase.DAISY_FLIP, time);
             whiteCorner();
+            time = lap(Phase.WHITE_CORNER, time);
             sideEdgeSolver();
-            star();
-            downSide();
-            completeSolver();
-            headlights();
+            time = lap(Phase.SIDE_EDGE_SOLVER, time);
+
+            if(method_ == Method.CFOP && LastLayer.orient(cube_))
+            {
+                time = lap(Phase.ORIENT, time);
+            }
+            else
+            {
+                time = System.nanoTime();   // A failed lookup is not part of the steps replacing it.
+
+                star();
+                time = lap(Phase.STAR, time);
+                downSide();
+                time = lap(Phase.DOWN_SIDE, time);
+            }
+
+            if(method_ == Method.CFOP && LastLayer.permute(cube_))
+            {
+                lap(Phase.PERMUTE, time);
+            }
+            else
+            {
+                time = System.nanoTime();
+
+                completeSolver();
+                time = lap(Phase.COMPLETE_SOLVER, time);
+                headlights();
+                lap(Phase.HEADLIGHTS, time);
+            }
         }
         catch(ExecutionException | InterruptedException e)
         {
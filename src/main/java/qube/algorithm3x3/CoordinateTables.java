@@ -0,0 +1,123 @@
+package qube.algorithm3x3;
+
+import java.util.function.ObjIntConsumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Move tables over the coordinates of a {@link CubieCube}.
+ *
+ * <p>Each table holds the coordinate reached by every move from every coordinate, so a move is a single array
+ * lookup.</p>
+ */
+public final class CoordinateTables
+{
+    private static final char[] TWIST = build(CubieCube.TWISTS, CubieCube::setTwist, CubieCube::getTwist);
+    private static final char[] FLIP = build(CubieCube.FLIPS, CubieCube::setFlip, CubieCube::getFlip);
+    private static final char[] CORNER_PERMUTATION = build(CubieCube.CORNER_PERMUTATIONS,
+            CubieCube::setCornerPermutation, CubieCube::getCornerPermutation);
+    private static final char[] SLICE = build(CubieCube.SLICES, CubieCube::setSlice, CubieCube::getSlice);
+    private static final char[] UD_EDGE_PERMUTATION = build(CubieCube.UD_EDGE_PERMUTATIONS,
+            CubieCube::setUDEdgePermutation, CubieCube::getUDEdgePermutation);
+
+    private CoordinateTables() {}
+
+    /**
+     * Builds the move table of a coordinate.
+     *
+     * @param   size    Number of values of the coordinate.
+     * @param   setter  Sets the coordinate of a cube.
+     * @param   getter  Gets the coordinate of a cube.
+     *
+     * @return          Table indexed by {@code coordinate * MOVES + move}.
+     */
+    static char[] build(int size, ObjIntConsumer<CubieCube> setter, ToIntFunction<CubieCube> getter)
+    {
+        char[] table = new char[size * CubieCube.MOVES];
+
+        CubieCube base = new CubieCube();
+        CubieCube moved = new CubieCube();
+
+        for(int i = 0; i < size; ++i)
+        {
+            setter.accept(base, i);
+
+            for(int move = 0; move < CubieCube.MOVES; ++move)
+            {
+                moved.set(base);
+                moved.move(move);
+
+                table[i * CubieCube.MOVES + move] = (char)getter.applyAsInt(moved);
+            }
+        }
+
+        return table;
+    }
+
+    /**
+     * Applies a move to a corner orientation coordinate.
+     *
+     * @param   twist   Twist coordinate.
+     * @param   move    Index of the move.
+     *
+     * @return          Twist after the move.
+     */
+    public static int twist(int twist, int move)
+    {
+        return TWIST[twist * CubieCube.MOVES + move];
+    }
+
+    /**
+     * Applies a move to an edge orientation coordinate.
+     *
+     * @param   flip    Flip coordinate.
+     * @param   move    Index of the move.
+     *
+     * @return          Flip after the move.
+     */
+    public static int flip(int flip, int move)
+    {
+        return FLIP[flip * CubieCube.MOVES + move];
+    }
+
+    /**
+     * Applies a move to a corner permutation coordinate.
+     *
+     * @param   permutation Corner permutation coordinate.
+     * @param   move        Index of the move.
+     *
+     * @return              Corner permutation after the move.
+     */
+    public static int cornerPermutation(int permutation, int move)
+    {
+        return CORNER_PERMUTATION[permutation * CubieCube.MOVES + move];
+    }
+
+    /**
+     * Applies a move to a slice coordinate.
+     *
+     * @param   slice   Slice coordinate.
+     * @param   move    Index of the move.
+     *
+     * @return          Slice after the move.
+     */
+    public static int slice(int slice, int move)
+    {
+        return SLICE[slice * CubieCube.MOVES + move];
+    }
+
+    /**
+     * Applies a move to an up and down edge permutation coordinate.
+     *
+     * <p>Only valid for moves keeping the slice edges in the slice, namely turns of the up and down sides and half
+     * turns of the others.</p>
+     *
+     * @param   permutation Up and down edge permutation coordinate.
+     * @param   move        Index of the move.
+     *
+     * @return              Permutation after the move.
+     */
+    public static int udEdgePermutation(int permutation, int move)
+    {
+        return UD_EDGE_PERMUTATION[permutation * CubieCube.MOVES + move];
+    }
+}
@@ -0,0 +1,806 @@
+package qube.algorithm3x3;
+
+import qube.Color;
+import qube.Cube;
+import qube.LocationSpace;
+import qube.PackedCube;
+import qube.Side;
+
+import java.util.Arrays;
+
+/**
+ * State of a 3x3 cube as corner and edge permutations and orientations.
+ *
+ * <p>Corners are ordered URF, UFL, ULB, UBR, DFR, DLF, DBL, DRB and edges UR, UF, UL, UB, DR, DF, DL, DB, FR, FL, BL,
+ * BR. Orientations are relative to the up and down centers, so centers are expected to be aligned with each other;
+ * slice turns are not part of this model.</p>
+ *
+ * <p>Moves are indexed {@code side.ordinal() * 3 + power - 1}, where a power of one is a clockwise quarter turn, two is
+ * a half turn and three is a counterclockwise quarter turn.</p>
+ */
+public class CubieCube
+{
+    public static final int CORNERS = 8;
+    public static final int EDGES = 12;
+    public static final int MOVES = 18;
+
+    public static final int TWISTS = 2187;
+    public static final int FLIPS = 2048;
+    public static final int CORNER_PERMUTATIONS = 40320;
+    public static final int EDGE_PERMUTATIONS = 479001600;
+    public static final int SLICES = 11880;
+    public static final int SLICE_PERMUTATIONS = 24;
+    public static final int UD_EDGE_PERMUTATIONS = 40320;
+
+    private static final int SLICE_EDGES = 4;
+    private static final int UD_EDGES = EDGES - SLICE_EDGES;
+
+    // Facelets of every corner clockwise, starting with its up or down facelet.
+    private static final LocationSpace[][] CORNER_FACELETS = {
+            corner(Side.UP, Location.BOTTOM_RIGHT),
+            corner(Side.UP, Location.BOTTOM_LEFT),
+            corner(Side.UP, Location.TOP_LEFT),
+            corner(Side.UP, Location.TOP_RIGHT),
+            corner(Side.DOWN, Location.TOP_RIGHT),
+            corner(Side.DOWN, Location.TOP_LEFT),
+            corner(Side.DOWN, Location.BOTTOM_LEFT),
+            corner(Side.DOWN, Location.BOTTOM_RIGHT)
+    };
+
+    // Facelets of every edge, starting with its up, down, front or back facelet.
+    private static final LocationSpace[][] EDGE_FACELETS = {
+            edge(Side.UP, Location.RIGHT),
+            edge(Side.UP, Location.BOTTOM),
+            edge(Side.UP, Location.LEFT),
+            edge(Side.UP, Location.TOP),
+            edge(Side.DOWN, Location.RIGHT),
+            edge(Side.DOWN, Location.TOP),
+            edge(Side.DOWN, Location.LEFT),
+            edge(Side.DOWN, Location.BOTTOM),
+            edge(Side.FRONT, Location.RIGHT),
+            edge(Side.FRONT, Location.LEFT),
+            edge(Side.BACK, Location.RIGHT),
+            edge(Side.BACK, Location.LEFT)
+    };
+
+    private static final CubieCube[] MOVE_CUBES = new CubieCube[MOVES];
+
+    static
+    {
+        for(Side side : Side.values())
+        {
+            ICube cube = new PackedCube(3);
+
+            for(int power = 1; power <= 3; ++power)
+            {
+                cube.rotateNow(side, false, 1);
+                MOVE_CUBES[moveIndex(side, power)] = fromCube(cube);
+            }
+        }
+    }
+
+    private final byte[] cp_ = new byte[CORNERS];
+    private final byte[] co_ = new byte[CORNERS];
+    private final byte[] ep_ = new byte[EDGES];
+    private final byte[] eo_ = new byte[EDGES];
+
+    /**
+     * Constructs a solved cube.
+     */
+    public CubieCube()
+    {
+        for(int i = 0; i < CORNERS; ++i)
+        {
+            cp_[i] = (byte)i;
+        }
+
+        for(int i = 0; i < EDGES; ++i)
+        {
+            ep_[i] = (byte)i;
+        }
+    }
+
+    /**
+     * Constructs a copy of a cube.
+     *
+     * @param   other   Cube to copy.
+     */
+    public CubieCube(CubieCube other)
+    {
+        set(other);
+    }
+
+    /**
+     * Reads the state of a 3x3 sticker cube.
+     *
+     * @param   cube    Cube to read.
+     *
+     * @return          Cubie representation of the cube.
+     */
+    public static CubieCube fromCube(IReadOnlyCube cube)
+    {
+        Color[] centers = new Color[Side.values().length];
+        for(Side side : Side.values())
+        {
+            centers[side.ordinal()] = cube.getFace(side).getColor(Location.CENTER);
+        }
+
+        final Color up = centers[Side.UP.ordinal()];
+        final Color down = centers[Side.DOWN.ordinal()];
+
+        CubieCube cubies = new CubieCube();
+
+        for(int i = 0; i < CORNERS; ++i)
+        {
+            Color[] colors = read(cube, CORNER_FACELETS[i]);
+
+            int ori = 0;
+            while(colors[ori] != up && colors[ori] != down)
+            {
+                if(++ori == 3)
+                {
+                    throw new IllegalArgumentException("Corner " + i + " has no up or down color");
+                }
+            }
+
+            int corner = identify(CORNER_FACELETS, centers, colors[ori], colors[(ori + 1) % 3]);
+            if(corner < 0)
+            {
+                throw new IllegalArgumentException("Corner " + i + " does not match any corner");
+            }
+
+            cubies.cp_[i] = (byte)corner;
+            cubies.co_[i] = (byte)ori;
+        }
+
+        for(int i = 0; i < EDGES; ++i)
+        {
+            Color[] colors = read(cube, EDGE_FACELETS[i]);
+
+            for(int ori = 0; ori < 2; ++ori)
+            {
+                int edge = identify(EDGE_FACELETS, centers, colors[ori], colors[1 - ori]);
+                if(edge >= 0)
+                {
+                    cubies.ep_[i] = (byte)edge;
+                    cubies.eo_[i] = (byte)ori;
+                    break;
+                }
+                else if(ori == 1)
+                {
+                    throw new IllegalArgumentException("Edge " + i + " does not match any edge");
+                }
+            }
+        }
+
+        return cubies;
+    }
+
+    /**
+     * Creates a sticker cube of this state.
+     *
+     * @param   animated    Whether to animate the cube.
+     *
+     * @return              Sticker cube with default center colors.
+     */
+    public Cube toCube(boolean animated)
+    {
+        Cube cube = new Cube(3, animated);
+
+        for(int i = 0; i < CORNERS; ++i)
+        {
+            for(int j = 0; j < 3; ++j)
+            {
+                LocationSpace from = CORNER_FACELETS[cp_[i]][j];
+                LocationSpace to = CORNER_FACELETS[i][(j + co_[i]) % 3];
+
+                cube.setColor(to.getSide(), to.getLocation(), cube.getFace(from.getSide()).getColor(Location.CENTER));
+            }
+        }
+
+        for(int i = 0; i < EDGES; ++i)
+        {
+            for(int j = 0; j < 2; ++j)
+            {
+                LocationSpace from = EDGE_FACELETS[ep_[i]][j];
+                LocationSpace to = EDGE_FACELETS[i][(j + eo_[i]) % 2];
+
+                cube.setColor(to.getSide(), to.getLocation(), cube.getFace(from.getSide()).getColor(Location.CENTER));
+            }
+        }
+
+        return cube;
+    }
+
+    /**
+     * Applies the state of another cube after this one.
+     *
+     * @param   b   State to apply.
+     */
+    public void multiply(CubieCube b)
+    {
+        byte[] cp = new byte[CORNERS], co = new byte[CORNERS];
+        for(int i = 0; i < CORNERS; ++i)
+        {
+            cp[i] = cp_[b.cp_[i]];
+            co[i] = (byte)((co_[b.cp_[i]] + b.co_[i]) % 3);
+        }
+
+        byte[] ep = new byte[EDGES], eo = new byte[EDGES];
+        for(int i = 0; i < EDGES; ++i)
+        {
+            ep[i] = ep_[b.ep_[i]];
+            eo[i] = (byte)((eo_[b.ep_[i]] + b.eo_[i]) % 2);
+        }
+
+        System.arraycopy(cp, 0, cp_, 0, CORNERS);
+        System.arraycopy(co, 0, co_, 0, CORNERS);
+        System.arraycopy(ep, 0, ep_, 0, EDGES);
+        System.arraycopy(eo, 0, eo_, 0, EDGES);
+    }
+
+    /**
+     * Applies a move.
+     *
+     * @param   move    Index of the move.
+     */
+    public void move(int move)
+    {
+        multiply(MOVE_CUBES[move]);
+    }
+
+    /**
+     * Copies the state of another cube.
+     *
+     * @param   other   Cube to copy.
+     */
+    public void set(CubieCube other)
+    {
+        System.arraycopy(other.cp_, 0, cp_, 0, CORNERS);
+        System.arraycopy(other.co_, 0, co_, 0, CORNERS);
+        System.arraycopy(other.ep_, 0, ep_, 0, EDGES);
+        System.arraycopy(other.eo_, 0, eo_, 0, EDGES);
+    }
+
+    /**
+     * Checks whether the cube is solved.
+     *
+     * @return  Whether every cubie is in place and oriented.
+     */
+    public boolean isSolved()
+    {
+        for(int i = 0; i < CORNERS; ++i)
+        {
+            if(cp_[i] != i || co_[i] != 0)
+            {
+                return false;
+            }
+        }
+
+        for(int i = 0; i < EDGES; ++i)
+        {
+            if(ep_[i] != i || eo_[i] != 0)
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Gets the corner orientation coordinate.
+     *
+     * @return  Twist from 0 to {@link #TWISTS} exclusive.
+     */
+    public int getTwist()
+    {
+        int twist = 0;
+        for(int i = 0; i < CORNERS - 1; ++i)
+        {
+            twist = twist * 3 + co_[i];
+        }
+
+        return twist;
+    }
+
+    /**
+     * Sets the corner orientation coordinate.
+     *
+     * @param   twist   Twist from 0 to {@link #TWISTS} exclusive.
+     */
+    public void setTwist(int twist)
+    {
+        int sum = 0;
+        for(int i = CORNERS - 2; i >= 0; --i)
+        {
+            co_[i] = (byte)(twist % 3);
+            sum += co_[i];
+            twist /= 3;
+        }
+
+        co_[CORNERS - 1] = (byte)((3 - sum % 3) % 3);
+    }
+
+    /**
+     * Gets the edge orientation coordinate.
+     *
+     * @return  Flip from 0 to {@link #FLIPS} exclusive.
+     */
+    public int getFlip()
+    {
+        int flip = 0;
+        for(int i = 0; i < EDGES - 1; ++i)
+        {
+            flip = flip * 2 + eo_[i];
+        }
+
+        return flip;
+    }
+
+    /**
+     * Sets the edge orientation coordinate.
+     *
+     * @param   flip    Flip from 0 to {@link #FLIPS} exclusive.
+     */
+    public void setFlip(int flip)
+    {
+        int sum = 0;
+        for(int i = EDGES - 2; i >= 0; --i)
+        {
+            eo_[i] = (byte)(flip % 2);
+            sum += eo_[i];
+            flip /= 2;
+        }
+
+        eo_[EDGES - 1] = (byte)(sum % 2);
+    }
+
+    /**
+     * Gets the corner permutation coordinate.
+     *
+     * @return  Permutation from 0 to {@link #CORNER_PERMUTATIONS} exclusive.
+     */
+    public int getCornerPermutation()
+    {
+        return rank(cp_);
+    }
+
+    /**
+     * Sets the corner permutation coordinate.
+     *
+     * @param   permutation Permutation from 0 to {@link #CORNER_PERMUTATIONS} exclusive.
+     */
+    public void setCornerPermutation(int permutation)
+    {
+        unrank(cp_, permutation);
+    }
+
+    /**
+     * Gets the edge permutation coordinate.
+     *
+     * @return  Permutation from 0 to {@link #EDGE_PERMUTATIONS} exclusive.
+     */
+    public int getEdgePermutation()
+    {
+        return rank(ep_);
+    }
+
+    /**
+     * Sets the edge permutation coordinate.
+     *
+     * @param   permutation Permutation from 0 to {@link #EDGE_PERMUTATIONS} exclusive.
+     */
+    public void setEdgePermutation(int permutation)
+    {
+        unrank(ep_, permutation);
+    }
+
+    /**
+     * Gets the slice coordinate, which places and orders the FR, FL, BL and BR edges.
+     *
+     * <p>The coordinate is the combination of positions holding those edges times {@link #SLICE_PERMUTATIONS} plus
+     * their order. The combination is {@code 0} when the edges are in the slice, so below
+     * {@link #SLICE_PERMUTATIONS} the coordinate is only their order within the slice.</p>
+     *
+     * @return  Slice from 0 to {@link #SLICES} exclusive.
+     */
+    public int getSlice()
+    {
+        int combination = 0, found = 0;
+        for(int i = EDGES - 1; i >= 0; --i)
+        {
+            if(ep_[i] >= UD_EDGES)
+            {
+                combination += binomial(EDGES - 1 - i, ++found);
+            }
+        }
+
+        byte[] order = new byte[SLICE_EDGES];
+        for(int i = 0, j = 0; i < EDGES; ++i)
+        {
+            if(ep_[i] >= UD_EDGES)
+            {
+                order[j++] = ep_[i];
+            }
+        }
+
+        return combination * SLICE_PERMUTATIONS + rank(order);
+    }
+
+    /**
+     * Sets the slice coordinate, filling the other positions with the remaining edges in order.
+     *
+     * @param   slice   Slice from 0 to {@link #SLICES} exclusive.
+     */
+    public void setSlice(int slice)
+    {
+        int combination = slice / SLICE_PERMUTATIONS;
+
+        byte[] order = new byte[SLICE_EDGES];
+        unrank(order, slice % SLICE_PERMUTATIONS);
+
+        boolean[] inSlice = new boolean[EDGES];
+        for(int i = 0, left = SLICE_EDGES; i < EDGES; ++i)
+        {
+            final int value = binomial(EDGES - 1 - i, left);
+            if(left > 0 && value <= combination)
+            {
+                inSlice[i] = true;
+                combination -= value;
+                --left;
+            }
+        }
+
+        for(int i = 0, sliceEdge = 0, other = 0; i < EDGES; ++i)
+        {
+            ep_[i] = inSlice[i] ? (byte)(UD_EDGES + order[sliceEdge++]) : (byte)other++;
+        }
+    }
+
+    /**
+     * Gets the permutation of the up and down edges, meaningful once they are all in the up and down layers.
+     *
+     * @return  Permutation from 0 to {@link #UD_EDGE_PERMUTATIONS} exclusive.
+     */
+    public int getUDEdgePermutation()
+    {
+        return rank(Arrays.copyOf(ep_, UD_EDGES));
+    }
+
+    /**
+     * Sets the permutation of the up and down edges, placing the slice edges in the slice.
+     *
+     * @param   permutation Permutation from 0 to {@link #UD_EDGE_PERMUTATIONS} exclusive.
+     */
+    public void setUDEdgePermutation(int permutation)
+    {
+        byte[] order = new byte[UD_EDGES];
+        unrank(order, permutation);
+
+        System.arraycopy(order, 0, ep_, 0, UD_EDGES);
+        for(int i = UD_EDGES; i < EDGES; ++i)
+        {
+            ep_[i] = (byte)i;
+        }
+    }
+
+    /**
+     * Checks whether the cube can be solved with face turns.
+     *
+     * <p>Every cubie must appear once, the twists and flips must cancel out and the corner and edge permutations
+     * must have the same parity.</p>
+     *
+     * @return  Whether the state is reachable from the solved state.
+     */
+    public boolean isSolvable()
+    {
+        int twist = 0, flip = 0;
+        for(byte co : co_)
+        {
+            twist += co;
+        }
+
+        for(byte eo : eo_)
+        {
+            flip += eo;
+        }
+
+        final int cornerParity = parity(cp_);
+        final int edgeParity = parity(ep_);
+
+        return twist % 3 == 0 && flip % 2 == 0 && cornerParity >= 0 && cornerParity == edgeParity;
+    }
+
+    /**
+     * Gets the edge at a position.
+     *
+     * @param   position    Position in edge order.
+     *
+     * @return              Edge at the position.
+     */
+    int getEdge(int position)
+    {
+        return ep_[position];
+    }
+
+    /**
+     * Gets the orientation of the edge at a position.
+     *
+     * @param   position    Position in edge order.
+     *
+     * @return              {@code 1} if flipped, otherwise {@code 0}.
+     */
+    int getEdgeOrientation(int position)
+    {
+        return eo_[position];
+    }
+
+    /**
+     * Gets the index of a move.
+     *
+     * @param   side    Side to rotate.
+     * @param   power   Number of clockwise quarter turns, from one to three.
+     *
+     * @return          Index of the move.
+     */
+    public static int moveIndex(Side side, int power)
+    {
+        return side.ordinal() * 3 + power - 1;
+    }
+
+    /**
+     * Tests whether two moves in a row are redundant.
+     *
+     * <p>Turning a side twice in a row is never needed, and of two turns of opposite sides only one order needs to be
+     * searched.</p>
+     *
+     * @param   last    Previous move index or {@code -1}.
+     * @param   move    Next move index.
+     *
+     * @return          Whether a search can skip {@code move}.
+     */
+    public static boolean isRedundant(int last, int move)
+    {
+        if(last < 0)
+        {
+            return false;
+        }
+
+        final int lastSide = last / 3, side = move / 3;
+        return side == lastSide || (side / 2 == lastSide / 2 && side < lastSide);
+    }
+
+    /**
+     * Converts a move index into a {@link Move}.
+     *
+     * @param   move    Index of the move.
+     *
+     * @return          Equivalent move.
+     */
+    public static Move toMove(int move)
+    {
+        final Side side = Side.values()[move / 3];
+        final int power = move % 3 + 1;
+
+        return power == 3 ? new Move(side, true, 1) : new Move(side, false, power);
+    }
+
+    /**
+     * Ranks a permutation in lexicographic order.
+     *
+     * @param   permutation Permutation to rank.
+     *
+     * @return              Rank of the permutation.
+     */
+    private static int rank(byte[] permutation)
+    {
+        int rank = 0;
+        for(int i = 0; i < permutation.length; ++i)
+        {
+            int smaller = 0;
+            for(int j = i + 1; j < permutation.length; ++j)
+            {
+                if(permutation[j] < permutation[i])
+                {
+                    ++smaller;
+                }
+            }
+
+            rank = rank * (permutation.length - i) + smaller;
+        }
+
+        return rank;
+    }
+
+    /**
+     * Unranks a permutation in lexicographic order.
+     *
+     * @param   permutation Array to fill.
+     * @param   rank        Rank of the permutation.
+     */
+    private static void unrank(byte[] permutation, int rank)
+    {
+        final int n = permutation.length;
+
+        int[] digits = new int[n];
+        for(int i = n - 1; i >= 0; --i)
+        {
+            digits[i] = rank % (n - i);
+            rank /= n - i;
+        }
+
+        boolean[] used = new boolean[n];
+        for(int i = 0; i < n; ++i)
+        {
+            int j = -1;
+            for(int k = 0; k <= digits[i]; ++k)
+            {
+                do
+                {
+                    ++j;
+                } while(used[j]);
+            }
+
+            used[j] = true;
+            permutation[i] = (byte)j;
+        }
+    }
+
+    /**
+     * Computes a binomial coefficient.
+     *
+     * @param   n   Number of elements.
+     * @param   k   Number chosen.
+     *
+     * @return      Number of ways to choose, {@code 0} if {@code k > n}.
+     */
+    private static int binomial(int n, int k)
+    {
+        if(k > n)
+        {
+            return 0;
+        }
+
+        int result = 1;
+        for(int i = 1; i <= k; ++i)
+        {
+            result = result * (n - k + i) / i;
+        }
+
+        return result;
+    }
+
+    /**
+     * Computes the parity of a permutation.
+     *
+     * @param   permutation Permutation of {@code 0} to {@code permutation.length} exclusive.
+     *
+     * @return              {@code 0} if even, {@code 1} if odd or {@code -1} if not a permutation.
+     */
+    private static int parity(byte[] permutation)
+    {
+        boolean[] seen = new boolean[permutation.length];
+        for(byte value : permutation)
+        {
+            if(value < 0 || value >= permutation.length || seen[value])
+            {
+                return -1;
+            }
+
+            seen[value] = true;
+        }
+
+        int inversions = 0;
+        for(int i = 0; i < permutation.length; ++i)
+        {
+            for(int j = i + 1; j < permutation.length; ++j)
+            {
+                if(permutation[j] < permutation[i])
+                {
+                    ++inversions;
+                }
+            }
+        }
+
+        return inversions % 2;
+    }
+
+    /**
+     * Builds the facelets of a corner.
+     *
+     * @param   side        Up or down side of the corner.
+     * @param   location    Location of the corner on {@code side}.
+     *
+     * @return              Facelets of the corner, clockwise.
+     */
+    private static LocationSpace[] corner(Side side, Location location)
+    {
+        LocationSpace first = new LocationSpace(side, location, null);
+        LocationSpace second = first.rotateCorner();
+
+        return new LocationSpace[] { first, second, second.rotateCorner() };
+    }
+
+    /**
+     * Builds the facelets of an edge.
+     *
+     * @param   side        Primary side of the edge.
+     * @param   location    Location of the edge on {@code side}.
+     *
+     * @return              Facelets of the edge.
+     */
+    private static LocationSpace[] edge(Side side, Location location)
+    {
+        LocationSpace first = new LocationSpace(side, location, null);
+        return new LocationSpace[] { first, first.flipEdge() };
+    }
+
+    /**
+     * Reads the colors of facelets.
+     *
+     * @param   cube        Cube to read.
+     * @param   facelets    Facelets to read.
+     *
+     * @return              Colors of the facelets.
+     */
+    private static Color[] read(IReadOnlyCube cube, LocationSpace[] facelets)
+    {
+        Color[] colors = new Color[facelets.length];
+        for(int i = 0; i < facelets.length; ++i)
+        {
+            colors[i] = facelets[i].determineColor(cube);
+        }
+
+        return colors;
+    }
+
+    /**
+     * Identifies a cubie from its first two colors in facelet order.
+     *
+     * @param   facelets    Facelets of every cubie.
+     * @param   centers     Center colors by side.
+     * @param   first       Color of the cubie's primary facelet.
+     * @param   second      Color of the next facelet.
+     *
+     * @return              Index of the cubie or {@code -1}.
+     */
+    private static int identify(LocationSpace[][] facelets, Color[] centers, Color first, Color second)
+    {
+        for(int i = 0; i < facelets.length; ++i)
+        {
+            if(centers[facelets[i][0].getSide().ordinal()] == first
+                    && centers[facelets[i][1].getSide().ordinal()] == second)
+            {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if(!(obj instanceof CubieCube))
+        {
+            return false;
+        }
+
+        CubieCube other = (CubieCube)obj;
+
+        return Arrays.equals(cp_, other.cp_)
+                && Arrays.equals(co_, other.co_)
+                && Arrays.equals(ep_, other.ep_)
+                && Arrays.equals(eo_, other.eo_);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int hash = Arrays.hashCode(cp_);
+        hash = 31 * hash + Arrays.hashCode(co_);
+        hash = 31 * hash + Arrays.hashCode(ep_);
+        return 31 * hash + Arrays.hashCode(eo_);
+    }
+}
@@ -21,7 +21,7 @@ public class DownCorner
      *
      * @param   cube    Cube to look at.
      */
-    public DownCorner(ICube cube)
+    public DownCorner(IReadOnlyCube cube)
     {
         IFace down = cube.getFace(Side.DOWN);
         final Color yellow = down.getColor(Location.CENTER);
@@ -20,7 +20,7 @@ public class DownShape
      *
      * @param   cube    Cube to look at.
      */
-    public DownShape(ICube cube)
+    public DownShape(IReadOnlyCube cube)
     {
         IFace down = cube.getFace(Side.DOWN);
         final Color yellow = down.getColor(Location.CENTER);
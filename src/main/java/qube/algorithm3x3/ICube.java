@@ -1,13 +1,13 @@
 package qube.algorithm3x3;
 
-import qube.Color;
-import qube.LocationSpace;
 import qube.Side;
 
-import java.util.List;
 import java.util.concurrent.Future;
 
-public interface ICube
+/**
+ * Cube that can be rotated as well as read.
+ */
+public interface ICube extends IReadOnlyCube
 {
     /**
      * Rotates the cube on the specified side.
@@ -33,33 +33,43 @@ public interface ICube
     Future<Void> rotate(Side side, boolean ccw, int count, int offset);
 
     /**
-     * Finds a location using conditions.
+     * Rotates the cube on the specified side on the calling thread.
      *
-     * @param   search  Search conditions.
-     *
-     * @return          {@link LocationSpace} or {@code null}.
+     * @param   side    Side to rotate.
+     * @param   ccw     Whether to rotate counterclockwise.
+     * @param   count   Number of times to rotate.
      */
-    Future<LocationSpace> find(ISearch search);
+    default void rotateNow(Side side, boolean ccw, int count) { rotateNow(side, ccw, count, 0); }
 
     /**
-     * Finds all matching locations from conditions.
+     * Rotates the cube on the specified side on the calling thread.
      *
-     * @param   search  Search conditions.
+     * <p>Returns once the rotation has been applied. An animated cube may still be playing it back.</p>
      *
-     * @return          {@link List<LocationSpace>} array.
+     * @param   side    Side to rotate.
+     * @param   ccw     Whether to rotate counterclockwise.
+     * @param   count   Number of times to rotate.
+     * @param   offset  Offset from side.
      */
-    Future<List<LocationSpace>> findAll(ISearch search);
+    void rotateNow(Side side, boolean ccw, int count, int offset);
 
     /**
-     * Gets the edges around a side
+     * Applies a sequence of moves as a single batch.
+     *
+     * <p>No other rotation is interleaved with the batch.</p>
      *
-     * @param   side    Side to look around.
-     * @param   edge    Edge of side.
+     * @param   moves   Moves to apply in order.
      *
-     * @return          Colors on the edge.
+     * @return          Future completing once every move has been applied and, if animated, played.
      */
-    Color[] getEdgeStrip(Side side, Side edge);
+    Future<Void> rotate(Move... moves);
 
-    IFace getFace(Side side);
-    boolean isComplete();
+    /**
+     * Applies a sequence of moves as a single batch on the calling thread.
+     *
+     * <p>No other rotation is interleaved with the batch.</p>
+     *
+     * @param   moves   Moves to apply in order.
+     */
+    void rotateNow(Move... moves);
 }
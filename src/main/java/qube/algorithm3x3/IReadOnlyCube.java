@@ -0,0 +1,87 @@
+package qube.algorithm3x3;
+
+import qube.Color;
+import qube.CubeSnapshot;
+import qube.LocationSpace;
+import qube.Side;
+
+import java.util.List;
+import java.util.concurrent.Future;
+
+/**
+ * Cube that can be read but not rotated, such as a {@link CubeSnapshot}.
+ */
+public interface IReadOnlyCube
+{
+    /**
+     * Finds a location using conditions.
+     *
+     * @param   search  Search conditions.
+     *
+     * @return          {@link LocationSpace} or {@code null}.
+     */
+    Future<LocationSpace> find(ISearch search);
+
+    /**
+     * Finds all matching locations from conditions.
+     *
+     * @param   search  Search conditions.
+     *
+     * @return          {@link List<LocationSpace>} array.
+     */
+    Future<List<LocationSpace>> findAll(ISearch search);
+
+    /**
+     * Finds a location matching a query.
+     *
+     * @param   query   Search query.
+     *
+     * @return          {@link LocationSpace} or {@code null}.
+     */
+    default Future<LocationSpace> find(SearchQuery query)
+    {
+        return find((side, location, color) -> query.test(this, side, location, color));
+    }
+
+    /**
+     * Finds all locations matching a query.
+     *
+     * @param   query   Search query.
+     *
+     * @return          {@link List<LocationSpace>} array.
+     */
+    default Future<List<LocationSpace>> findAll(SearchQuery query)
+    {
+        return findAll((side, location, color) -> query.test(this, side, location, color));
+    }
+
+    /**
+     * Gets the edges around a side
+     *
+     * @param   side    Side to look around.
+     * @param   edge    Edge of side.
+     *
+     * @return          Colors on the edge.
+     */
+    Color[] getEdgeStrip(Side side, Side edge);
+
+    /**
+     * Gets a 64-bit fingerprint of the cube's stickers.
+     *
+     * <p>Kept up to date as the cube rotates. Equal states of cubes with the same dimensions always have equal
+     * fingerprints.</p>
+     *
+     * @return          Zobrist hash of the stickers.
+     */
+    long getFingerprint();
+
+    /**
+     * Takes an immutable snapshot of the cube's state.
+     *
+     * @return          Snapshot of the state.
+     */
+    CubeSnapshot snapshot();
+
+    IFace getFace(Side side);
+    boolean isComplete();
+}
@@ -0,0 +1,349 @@
+package qube.algorithm3x3;
+
+import qube.Color;
+import qube.CubeSnapshot;
+import qube.Side;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Solves the down layer of a 3x3 cube with one orientation and one permutation algorithm, looked up by case.
+ *
+ * <p>Algorithms are written in standard notation for a last layer on top and turned upside down, so that standard
+ * {@code U} turns {@link Side#DOWN}, {@code R} turns {@link Side#LEFT} and {@code F} stays {@link Side#FRONT}. Cases
+ * are never written out: each algorithm is undone from the solved state after every turn of the down side, and the
+ * state reached is the case it solves from that turn.</p>
+ */
+final class LastLayer
+{
+    private static final Side[] RING = { Side.FRONT, Side.RIGHT, Side.BACK, Side.LEFT };
+    private static final Location[] ROW = { Location.BOTTOM_LEFT, Location.BOTTOM, Location.BOTTOM_RIGHT };
+    private static final Location[] DOWN = {
+            Location.TOP_LEFT, Location.TOP, Location.TOP_RIGHT, Location.LEFT,
+            Location.RIGHT, Location.BOTTOM_LEFT, Location.BOTTOM, Location.BOTTOM_RIGHT
+    };
+
+    // One algorithm for each of the 57 orientation cases, in standard notation.
+    private static final String[] OLL = {
+            "R U2 R2 F R F' U2 R' F R F'", "F R U R' U' F' f R U R' U' f'", "f R U R' U' f' U' F R U R' U' F'",
+            "f R U R' U' f' U F R U R' U' F'", "r' U2 R U R' U r", "r U2 R' U' R U' r'", "r U R' U R U2 r'",
+            "l' U' L U' L' U2 l", "R U R' U' R' F R2 U R' U' F'", "R U R' U R' F R F' R U2 R'",
+            "r U R' U R' F R F' R U2 r'", "M' R' U' R U' R' U2 R U' R r'", "F U R U' R2 F' R U R U' R'",
+            "R' F R U R' F' R F U' F'", "l' U' l L' U' L U l' U l", "r U r' R U R' U' r U' r'",
+            "F R' F' R2 r' U R U' R' U' M'", "r U R' U R U2 r2 U' R U' R' U2 r", "r' R U R U R' U' M' R' F R F'",
+            "r U R' U' M2 U R U' R' U' M'", "R U2 R' U' R U R' U' R U' R'", "R U2 R2 U' R2 U' R2 U2 R",
+            "R2 D' R U2 R' D R U2 R", "r U R' U' r' F R F'", "F' r U R' U' r' F R", "R U2 R' U' R U' R'",
+            "R U R' U R U2 R'", "r U R' U' M U R U' R'", "R U R' U' R U' R' F' U' F R U R'",
+            "F R' F R2 U' R' U' R U R' F2", "R' U' F U R U' R' F' R", "L U F' U' L' U L F L'",
+            "R U R' U' R' F R F'", "R U R2 U' R' F R U R U' F'", "R U2 R2 F R F' R U2 R'",
+            "L' U' L U' L' U L U L F' L' F", "F R' F' R U R U' R'", "R U R' U R U' R' U' R' F R F'",
+            "L F' L' U' L U F U' L'", "R' F R U R' U' F' U R", "R U R' U R U2 R' F R U R' U' F'",
+            "R' U' R U' R' U2 R F R U R' U' F'", "F' U' L' U L F", "F U R U' R' F'", "F R U R' U' F'",
+            "R' U' R' F R F' U R", "R' U' R' F R F' R' F R F' U R", "F R U R' U' R U R' U' F'",
+            "r U' r2 U r2 U r2 U' r", "r' U r2 U' r2 U' r2 U r'", "F U R U' R' U R U' R' F'",
+            "R U R' U R U' B U' B' R'", "l' U2 L U L' U' L U L' U l", "r U2 R' U' R U R' U' R U' r'",
+            "R' F R U R U' R2 F' R2 U' R' U R U R'", "r' U' r U' R' U R U' R' U R r' U r",
+            "R U R' U' M' U R U' r'"
+    };
+
+    // One algorithm for each of the 21 permutation cases, in standard notation.
+    private static final String[] PLL = {
+            "R' F R' B2 R F' R' B2 R2", "R2 B2 R F R' B2 R F' R", "R B' R' F R B R' F' R B R' F R B' R' F'",
+            "M2 U M2 U2 M2 U M2", "R U' R U R U R U' R' U' R2", "R2 U R U R' U' R' U' R' U R'",
+            "M' U M2 U M2 U M' U2 M2", "R' U' F' R U R' U' R' F R2 U' R' U' R U R' U R",
+            "R2 U R' U R' U' R U' R2 U' D R' U R D'", "R' U' R U D' R2 U R' U R U' R U' R2 D",
+            "R2 U' R U' R U R' U R2 U D' R U' R' D", "R U R' U' D R2 U' R U' R' U R' U R2 D'",
+            "R' U L' U2 R U' R' U2 R L U'", "R U R' F' R U R' U' R' F R2 U' R' U'",
+            "R U R' U R U R' F' R U R' U' R' F R2 U' R' U2 R U' R'", "R' U R U' R' F' U' F R U R' F R' F' R U' R",
+            "R U' R' U' R U R D R' U' R D' R' U2 R'", "R2 F R U R U' R' F' R U2 R' U2 R",
+            "R U R' U' R' F R2 U' R' U' R U R' F'", "R' U R' U' R D' R' D R' U D' R2 U' R2 D R2",
+            "F R U' R' U' R U R' F' R U R' U' R' F R F'"
+    };
+
+    private static final Map<Integer, Move[]> ORIENTATIONS = new HashMap<>();
+    private static final Map<Long, Move[]> PERMUTATIONS = new HashMap<>();
+
+    static
+    {
+        final CubeSnapshot solved = CubeSnapshot.solved(3);
+
+        for(String algorithm : OLL)
+        {
+            Move[] moves = parse(algorithm);
+            CubeSnapshot undone = solved.apply(invert(moves));
+
+            for(int before = 0; before < 4; ++before)
+            {
+                Integer key = orientation(undone.apply(Side.DOWN, true, before, 0));
+                Move[] solution = concat(before, moves, 0);
+
+                Move[] known = ORIENTATIONS.get(key);
+                if(known == null || known.length > solution.length)
+                {
+                    ORIENTATIONS.put(key, solution);
+                }
+            }
+        }
+
+        ORIENTATIONS.put(orientation(solved), new Move[0]);
+
+        List<Move[]> algorithms = new ArrayList<>();
+        algorithms.add(new Move[0]);
+        for(String algorithm : PLL)
+        {
+            algorithms.add(parse(algorithm));
+        }
+
+        for(Move[] moves : algorithms)
+        {
+            for(int after = 0; after < 4; ++after)
+            {
+                CubeSnapshot undone = solved.apply(Side.DOWN, true, after, 0).apply(invert(moves));
+
+                for(int before = 0; before < 4; ++before)
+                {
+                    Long key = permutation(undone.apply(Side.DOWN, true, before, 0));
+                    Move[] solution = concat(before, moves, after);
+
+                    Move[] known = PERMUTATIONS.get(key);
+                    if(known == null || known.length > solution.length)
+                    {
+                        PERMUTATIONS.put(key, solution);
+                    }
+                }
+            }
+        }
+    }
+
+    private LastLayer() {}
+
+    /**
+     * Orients the down layer with a single algorithm.
+     *
+     * @param   cube    Cube with the first two layers solved.
+     *
+     * @return          Whether the case was known and solved.
+     */
+    static boolean orient(ICube cube)
+    {
+        return apply(cube, ORIENTATIONS.get(orientation(cube.snapshot())));
+    }
+
+    /**
+     * Permutes the oriented down layer with a single algorithm, finishing the cube.
+     *
+     * @param   cube    Cube with everything but the permutation of the down layer solved.
+     *
+     * @return          Whether the case was known and solved.
+     */
+    static boolean permute(ICube cube)
+    {
+        return apply(cube, PERMUTATIONS.get(permutation(cube.snapshot())));
+    }
+
+    /**
+     * Applies the moves of a case.
+     *
+     * @param   cube    Cube to rotate.
+     * @param   moves   Moves solving the case, or {@code null} if unknown.
+     *
+     * @return          Whether the case was known.
+     */
+    private static boolean apply(ICube cube, Move[] moves)
+    {
+        if(moves == null)
+        {
+            return false;
+        }
+
+        cube.rotateNow(moves);
+        return true;
+    }
+
+    /**
+     * Gets the key of the orientation of the down layer.
+     *
+     * @param   cube    Cube to read.
+     *
+     * @return          Bits of which down layer stickers have the down color.
+     */
+    private static int orientation(IReadOnlyCube cube)
+    {
+        IFace down = cube.getFace(Side.DOWN);
+        final Color yellow = down.getColor(Location.CENTER);
+
+        int key = 0;
+        for(Location location : DOWN)
+        {
+            key = key << 1 | (down.getColor(location) == yellow ? 1 : 0);
+        }
+
+        for(Side side : RING)
+        {
+            IFace face = cube.getFace(side);
+            for(Location location : ROW)
+            {
+                key = key << 1 | (face.getColor(location) == yellow ? 1 : 0);
+            }
+        }
+
+        return key;
+    }
+
+    /**
+     * Gets the key of the permutation of the down layer.
+     *
+     * <p>Colors are read as the side whose center holds them, so centers turned about the down side read the
+     * same.</p>
+     *
+     * @param   cube    Cube to read.
+     *
+     * @return          Side of the center matching every side sticker of the down layer, two bits each.
+     */
+    private static long permutation(IReadOnlyCube cube)
+    {
+        Color[] centers = new Color[RING.length];
+        for(int i = 0; i < RING.length; ++i)
+        {
+            centers[i] = cube.getFace(RING[i]).getColor(Location.CENTER);
+        }
+
+        long key = 0;
+        for(Side side : RING)
+        {
+            IFace face = cube.getFace(side);
+            for(Location location : ROW)
+            {
+                final Color color = face.getColor(location);
+
+                int match = 0;
+                while(match < RING.length - 1 && centers[match] != color)
+                {
+                    ++match;
+                }
+
+                key = key << 2 | match;
+            }
+        }
+
+        return key;
+    }
+
+    /**
+     * Parses standard notation, turned so the last layer is {@link Side#DOWN}.
+     *
+     * <p>Lower case letters turn two layers, {@code M}, {@code E} and {@code S} the middle layer as {@code L},
+     * {@code D} and {@code F} do.</p>
+     *
+     * @param   algorithm   Moves separated by spaces, each a letter followed by nothing, {@code 2} or {@code '}.
+     *
+     * @return              Moves in this cube's sides.
+     */
+    static Move[] parse(String algorithm)
+    {
+        List<Move> moves = new ArrayList<>();
+
+        for(String token : algorithm.trim().split("\\s+"))
+        {
+            final char letter = token.charAt(0);
+            final boolean ccw = token.endsWith("'");
+            final int count = token.endsWith("2") ? 2 : 1;
+
+            switch(letter)
+            {
+            case 'M':
+                moves.add(new Move(side('L'), ccw, count, 1));
+                break;
+            case 'E':
+                moves.add(new Move(side('D'), ccw, count, 1));
+                break;
+            case 'S':
+                moves.add(new Move(side('F'), ccw, count, 1));
+                break;
+            default:
+                final Side side = side(Character.toUpperCase(letter));
+                moves.add(new Move(side, ccw, count, 0));
+
+                if(Character.isLowerCase(letter))
+                {
+                    moves.add(new Move(side, ccw, count, 1));
+                }
+            }
+        }
+
+        return moves.toArray(new Move[0]);
+    }
+
+    /**
+     * Gets the side a standard face letter turns, with the cube upside down.
+     *
+     * @param   letter  Face letter.
+     *
+     * @return          Side of this cube.
+     */
+    private static Side side(char letter)
+    {
+        switch(letter)
+        {
+        case 'U': return Side.DOWN;
+        case 'D': return Side.UP;
+        case 'R': return Side.LEFT;
+        case 'L': return Side.RIGHT;
+        case 'F': return Side.FRONT;
+        case 'B': return Side.BACK;
+        default: throw new IllegalArgumentException("Unknown face " + letter);
+        }
+    }
+
+    /**
+     * Inverts a sequence of moves.
+     *
+     * @param   moves   Moves to invert.
+     *
+     * @return          Moves undoing {@code moves}.
+     */
+    private static Move[] invert(Move[] moves)
+    {
+        Move[] inverted = new Move[moves.length];
+        for(int i = 0; i < moves.length; ++i)
+        {
+            Move move = moves[moves.length - 1 - i];
+            inverted[i] = new Move(move.getSide(), !move.isCcw(), move.getCount(), move.getOffset());
+        }
+
+        return inverted;
+    }
+
+    /**
+     * Surrounds an algorithm with turns of the down side.
+     *
+     * @param   before  Clockwise quarter turns before.
+     * @param   moves   Algorithm.
+     * @param   after   Clockwise quarter turns after.
+     *
+     * @return          Moves of the whole sequence.
+     */
+    private static Move[] concat(int before, Move[] moves, int after)
+    {
+        List<Move> sequence = new ArrayList<>();
+        if(before != 0)
+        {
+            sequence.add(new Move(Side.DOWN, before == 3, before == 3 ? 1 : before));
+        }
+
+        for(Move move : moves)
+        {
+            sequence.add(move);
+        }
+
+        if(after != 0)
+        {
+            sequence.add(new Move(Side.DOWN, after == 3, after == 3 ? 1 : after));
+        }
+
+        return sequence.toArray(new Move[0]);
+    }
+}
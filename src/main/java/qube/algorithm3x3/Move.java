@@ -0,0 +1,71 @@
+package qube.algorithm3x3;
+
+import qube.Side;
+
+import java.util.Objects;
+
+/**
+ * A single rotation of a cube.
+ */
+public class Move
+{
+    private final Side side_;
+    private final boolean ccw_;
+    private final int count_;
+    private final int offset_;
+
+    /**
+     * Constructs a move.
+     *
+     * @param   side    Side to rotate.
+     * @param   ccw     Whether to rotate counterclockwise.
+     * @param   count   Number of times to rotate.
+     * @param   offset  Offset from side.
+     */
+    public Move(Side side, boolean ccw, int count, int offset)
+    {
+        side_ = side;
+        ccw_ = ccw;
+        count_ = count;
+        offset_ = offset;
+    }
+
+    /**
+     * Constructs a move of the outer layer of a side.
+     *
+     * @param   side    Side to rotate.
+     * @param   ccw     Whether to rotate counterclockwise.
+     * @param   count   Number of times to rotate.
+     */
+    public Move(Side side, boolean ccw, int count)
+    {
+        this(side, ccw, count, 0);
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if(!(obj instanceof Move))
+        {
+            return false;
+        }
+
+        Move other = (Move)obj;
+
+        return side_ == other.side_
+                && ccw_ == other.ccw_
+                && count_ == other.count_
+                && offset_ == other.offset_;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(side_, ccw_, count_, offset_);
+    }
+
+    public Side getSide() { return side_; }
+    public boolean isCcw() { return ccw_; }
+    public int getCount() { return count_; }
+    public int getOffset() { return offset_; }
+}
@@ -0,0 +1,170 @@
+package qube.algorithm3x3;
+
+import qube.Color;
+import qube.PackedCube;
+import qube.Side;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shortens sequences of moves without changing what they do to a cube.
+ *
+ * <p>Turns of layers on the same axis commute, so every run of them is merged into at most one turn per layer:
+ * inverses cancel, repeated turns add up modulo four and turns of opposite sides in between no longer keep them
+ * apart. When most layers of a run turn the same way, the run is a rotation of the whole cube plus a few turns. The
+ * rotation is dropped and later moves are relabeled to the sides they would have turned, so the result matches the
+ * original up to the orientation of the whole cube.</p>
+ */
+public final class MoveOptimizer
+{
+    private static final Side[] SIDES = Side.values();
+    private static final int AXES = 3;
+
+    // Side whose stickers a quarter rotation of the whole cube about an axis brings to each side. Each side of a solved
+    // PackedCube holds the color of the same ordinal.
+    private static final Side[][] ROTATIONS = new Side[AXES][SIDES.length];
+
+    static
+    {
+        for(int axis = 0; axis < AXES; ++axis)
+        {
+            PackedCube cube = new PackedCube(3);
+            for(int layer = 0; layer < 3; ++layer)
+            {
+                cube.rotateNow(SIDES[axis * 2], false, 1, layer);
+            }
+
+            for(Side to : SIDES)
+            {
+                final Color color = cube.getFace(to).getColor(Location.CENTER);
+                for(Side from : SIDES)
+                {
+                    if(from.ordinal() == color.ordinal())
+                    {
+                        ROTATIONS[axis][to.ordinal()] = from;
+                    }
+                }
+            }
+        }
+    }
+
+    private MoveOptimizer() {}
+
+    /**
+     * Optimizes a sequence of moves.
+     *
+     * @param   dimensions  Dimensions of the cube the moves are for.
+     * @param   moves       Moves to optimize.
+     *
+     * @return              Equivalent moves up to a rotation of the whole cube, never more than given.
+     */
+    public static Move[] optimize(int dimensions, Move... moves)
+    {
+        List<Move> optimized = new ArrayList<>();
+
+        Side[] frame = SIDES.clone();   // Side each original side is turned as, after dropped rotations.
+        int[] turns = new int[dimensions];   // Clockwise quarter turns of each layer, seen from the run's axis.
+        int axis = -1;
+
+        for(Move move : moves)
+        {
+            Side side = frame[move.getSide().ordinal()];
+
+            if(side.ordinal() / 2 != axis)
+            {
+                if(axis >= 0)
+                {
+                    final int rotation = flush(axis, turns, optimized);
+                    for(int i = 0; i < rotation; ++i)
+                    {
+                        relabel(frame, axis);
+                    }
+
+                    side = frame[move.getSide().ordinal()];
+                }
+
+                axis = side.ordinal() / 2;
+            }
+
+            final boolean positive = side.ordinal() % 2 == 0;
+            final int layer = positive ? move.getOffset() : dimensions - 1 - move.getOffset();
+            final int quarters = (move.isCcw() == positive ? -move.getCount() : move.getCount()) % 4;
+
+            turns[layer] = (turns[layer] + quarters + 4) % 4;
+        }
+
+        if(axis >= 0)
+        {
+            flush(axis, turns, optimized);
+        }
+
+        return optimized.toArray(new Move[0]);
+    }
+
+    /**
+     * Emits the merged turns of a run, dropping a rotation of the whole cube if that leaves fewer.
+     *
+     * @param   axis    Axis of the run.
+     * @param   turns   Clockwise quarter turns of each layer, cleared once emitted.
+     * @param   moves   Receives the turns.
+     *
+     * @return          Clockwise quarter turns of the dropped rotation.
+     */
+    private static int flush(int axis, int[] turns, List<Move> moves)
+    {
+        int[] counts = new int[4];
+        for(int layer : turns)
+        {
+            ++counts[layer];
+        }
+
+        int rotation = 0;   // Only dropped if more layers turn with it than stay put.
+        for(int quarters = 1; quarters < 4; ++quarters)
+        {
+            if(counts[quarters] > counts[rotation])
+            {
+                rotation = quarters;
+            }
+        }
+
+        final Side positive = SIDES[axis * 2], negative = SIDES[axis * 2 + 1];
+
+        for(int layer = 0; layer < turns.length; ++layer)
+        {
+            final int quarters = (turns[layer] - rotation + 4) % 4;
+            turns[layer] = 0;
+
+            if(quarters == 0)
+            {
+                continue;
+            }
+
+            if(layer <= (turns.length - 1) / 2)
+            {
+                moves.add(new Move(positive, quarters == 3, quarters == 3 ? 1 : quarters, layer));
+            }
+            else
+            {
+                final int offset = turns.length - 1 - layer;
+                moves.add(new Move(negative, quarters == 1, quarters == 1 ? 1 : 4 - quarters, offset));
+            }
+        }
+
+        return rotation;
+    }
+
+    /**
+     * Relabels sides after dropping a clockwise quarter rotation of the whole cube.
+     *
+     * @param   frame   Side each original side is turned as, updated in place.
+     * @param   axis    Axis of the rotation.
+     */
+    private static void relabel(Side[] frame, int axis)
+    {
+        for(int i = 0; i < frame.length; ++i)
+        {
+            frame[i] = ROTATIONS[axis][frame[i].ordinal()];
+        }
+    }
+}
@@ -0,0 +1,409 @@
+package qube.algorithm3x3;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Finds the shortest solutions of a 3x3 cube with iterative deepening A*.
+ *
+ * <p>The search is bounded by pattern databases holding the exact number of moves needed to solve the corners, and
+ * either half of the edges, on their own. With 88 million corner and twice 42 million edge entries they take a while
+ * to build, so they are saved into a directory once and mapped into memory on every later start. Each iteration
+ * searches the subtrees of the first moves on separate threads.</p>
+ *
+ * <p>Most random states need 17 or 18 moves, which can take minutes to prove optimal. {@link TwoPhaseSolver} is
+ * far faster when a short solution is good enough.</p>
+ */
+public class OptimalSolver
+{
+    private static final int MAX_LENGTH = 20;   // Every state is solvable in 20 moves.
+
+    private static final int GROUP = 6;   // Edges in each edge database.
+    private static final int PLACEMENTS = 665280;   // Ways to place a group, 12! / 6!.
+    private static final int CORNER_STATES = CubieCube.CORNER_PERMUTATIONS * CubieCube.TWISTS;
+    private static final int EDGE_STATES = PLACEMENTS << GROUP;
+
+    private static final int[] MOVES = new int[CubieCube.MOVES];
+    private static final int[] EDGE_TARGETS = new int[CubieCube.MOVES * CubieCube.EDGES];
+    private static final int[] EDGE_FLIPS = new int[CubieCube.MOVES * CubieCube.EDGES];
+    private static final int[] PLACEMENT_MOVES = new int[PLACEMENTS * CubieCube.MOVES];
+
+    private static final int LOW_SOLVED = placement(0) << GROUP;
+    private static final int HIGH_SOLVED = placement(GROUP) << GROUP;
+
+    static
+    {
+        for(int move = 0; move < CubieCube.MOVES; ++move)
+        {
+            MOVES[move] = move;
+
+            CubieCube cube = new CubieCube();
+            cube.move(move);
+
+            for(int i = 0; i < CubieCube.EDGES; ++i)
+            {
+                EDGE_TARGETS[move * CubieCube.EDGES + cube.getEdge(i)] = i;
+                EDGE_FLIPS[move * CubieCube.EDGES + i] = cube.getEdgeOrientation(i);
+            }
+        }
+
+        int[] positions = new int[GROUP], moved = new int[GROUP];
+        for(int placement = 0; placement < PLACEMENTS; ++placement)
+        {
+            unrank(placement, positions);
+
+            for(int move = 0; move < CubieCube.MOVES; ++move)
+            {
+                int flips = 0;
+                for(int k = 0; k < GROUP; ++k)
+                {
+                    moved[k] = EDGE_TARGETS[move * CubieCube.EDGES + positions[k]];
+                    flips |= EDGE_FLIPS[move * CubieCube.EDGES + moved[k]] << k;
+                }
+
+                PLACEMENT_MOVES[placement * CubieCube.MOVES + move] = rank(moved) << GROUP | flips;
+            }
+        }
+    }
+
+    private final PruningTable corners_;
+    private final PruningTable lowEdges_;
+    private final PruningTable highEdges_;
+    private final int threads_;
+
+    private OptimalSolver(PruningTable corners, PruningTable lowEdges, PruningTable highEdges, int threads)
+    {
+        corners_ = corners;
+        lowEdges_ = lowEdges;
+        highEdges_ = highEdges;
+        threads_ = threads;
+    }
+
+    /**
+     * Opens a solver, mapping its databases from a directory and building any that are missing.
+     *
+     * @param   directory   Directory holding the databases.
+     * @param   threads     Number of threads searching each solve.
+     *
+     * @return              Solver ready to use.
+     *
+     * @throws  IOException If the databases cannot be read or written.
+     */
+    public static OptimalSolver open(Path directory, int threads) throws IOException
+    {
+        PruningTable corners = PruningTable.open(directory.resolve("corners.pdb"), CORNER_STATES, 0, MOVES,
+                OptimalSolver::moveCorners);
+        PruningTable lowEdges = PruningTable.open(directory.resolve("edges-low.pdb"), EDGE_STATES, LOW_SOLVED, MOVES,
+                OptimalSolver::moveEdges);
+        PruningTable highEdges = PruningTable.open(directory.resolve("edges-high.pdb"), EDGE_STATES, HIGH_SOLVED,
+                MOVES, OptimalSolver::moveEdges);
+
+        return new OptimalSolver(corners, lowEdges, highEdges, threads);
+    }
+
+    /**
+     * Finds a shortest solution to the current state of a cube.
+     *
+     * @param   cube    3x3 cube to solve.
+     *
+     * @return          Moves solving the cube, ready for {@link ICube#rotate(Move...)}.
+     *
+     * @throws  IllegalArgumentException    If the cube is not a solvable 3x3.
+     */
+    public Move[] solve(IReadOnlyCube cube)
+    {
+        if(cube.snapshot().getDimensions() != 3)
+        {
+            throw new IllegalArgumentException("Only 3x3 cubes can be solved");
+        }
+
+        return solve(CubieCube.fromCube(cube));
+    }
+
+    /**
+     * Finds a shortest solution to a cubie state.
+     *
+     * @param   cube    State to solve.
+     *
+     * @return          Moves solving the state.
+     *
+     * @throws  IllegalArgumentException    If the state is not solvable.
+     */
+    public Move[] solve(CubieCube cube)
+    {
+        if(!cube.isSolvable())
+        {
+            throw new IllegalArgumentException("Cube is not solvable");
+        }
+
+        final int corners = cube.getCornerPermutation() * CubieCube.TWISTS + cube.getTwist();
+        final int low = edges(cube, 0);
+        final int high = edges(cube, GROUP);
+
+        if(estimate(corners, low, high) == 0)
+        {
+            return new Move[0];
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads_);
+
+        try
+        {
+            for(int length = Math.max(1, estimate(corners, low, high)); length <= MAX_LENGTH; ++length)
+            {
+                final int remaining = length - 1;
+                final AtomicReference<int[]> solution = new AtomicReference<>();
+                List<Future<?>> branches = new ArrayList<>();
+
+                for(int move = 0; move < CubieCube.MOVES; ++move)
+                {
+                    final int nextCorners = moveCorners(corners, move);
+                    final int nextLow = moveEdges(low, move);
+                    final int nextHigh = moveEdges(high, move);
+
+                    if(estimate(nextCorners, nextLow, nextHigh) > remaining)
+                    {
+                        continue;
+                    }
+
+                    final int[] path = new int[length];
+                    path[0] = move;
+
+                    branches.add(executor.submit(() -> search(nextCorners, nextLow, nextHigh, path, 1, solution)));
+                }
+
+                for(Future<?> branch : branches)
+                {
+                    branch.get();
+                }
+
+                if(solution.get() != null)
+                {
+                    Move[] moves = new Move[length];
+                    for(int i = 0; i < length; ++i)
+                    {
+                        moves[i] = CubieCube.toMove(solution.get()[i]);
+                    }
+
+                    return moves;
+                }
+            }
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Solve interrupted", e);
+        }
+        catch(ExecutionException e)
+        {
+            throw new IllegalStateException("Unknown error occurred", e.getCause());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        throw new IllegalStateException("Unknown error occurred");
+    }
+
+    /**
+     * Searches for a solution of exactly the length of {@code path}.
+     *
+     * @param   corners     Corner state.
+     * @param   low         State of the first half of the edges.
+     * @param   high        State of the second half of the edges.
+     * @param   path        Moves made so far.
+     * @param   depth       Number of moves made.
+     * @param   solution    Receives the first solution found by any thread.
+     *
+     * @return              Whether this search found the solution.
+     */
+    private boolean search(int corners, int low, int high, int[] path, int depth, AtomicReference<int[]> solution)
+    {
+        if(depth == path.length)
+        {
+            return corners == 0 && low == LOW_SOLVED && high == HIGH_SOLVED && solution.compareAndSet(null, path);
+        }
+
+        final int remaining = path.length - depth - 1;
+
+        for(int move = 0; move < CubieCube.MOVES && solution.get() == null; ++move)
+        {
+            if(CubieCube.isRedundant(path[depth - 1], move))
+            {
+                continue;
+            }
+
+            final int nextCorners = moveCorners(corners, move);
+            if(corners_.get(nextCorners) > remaining)
+            {
+                continue;
+            }
+
+            final int nextLow = moveEdges(low, move);
+            final int nextHigh = moveEdges(high, move);
+
+            if(lowEdges_.get(nextLow) > remaining || highEdges_.get(nextHigh) > remaining)
+            {
+                continue;
+            }
+
+            path[depth] = move;
+
+            if(search(nextCorners, nextLow, nextHigh, path, depth + 1, solution))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Gets a lower bound of the moves needed to solve a state.
+     *
+     * @param   corners Corner state.
+     * @param   low     State of the first half of the edges.
+     * @param   high    State of the second half of the edges.
+     *
+     * @return          Lower bound of moves to solve the cube.
+     */
+    private int estimate(int corners, int low, int high)
+    {
+        return Math.max(corners_.get(corners), Math.max(lowEdges_.get(low), highEdges_.get(high)));
+    }
+
+    /**
+     * Applies a move to a corner state, made of the corner permutation and twist.
+     *
+     * @param   corners Corner state.
+     * @param   move    Index of the move.
+     *
+     * @return          Corner state after the move.
+     */
+    private static int moveCorners(int corners, int move)
+    {
+        return CoordinateTables.cornerPermutation(corners / CubieCube.TWISTS, move) * CubieCube.TWISTS
+                + CoordinateTables.twist(corners % CubieCube.TWISTS, move);
+    }
+
+    /**
+     * Applies a move to the state of a group of edges, made of their placement and one flip bit each.
+     *
+     * @param   edges   Edge state.
+     * @param   move    Index of the move.
+     *
+     * @return          Edge state after the move.
+     */
+    private static int moveEdges(int edges, int move)
+    {
+        final int moved = PLACEMENT_MOVES[(edges >>> GROUP) * CubieCube.MOVES + move];
+        return moved ^ edges & (1 << GROUP) - 1;
+    }
+
+    /**
+     * Reads the state of a group of edges.
+     *
+     * @param   cube    Cube to read.
+     * @param   first   First edge of the group.
+     *
+     * @return          State of the edges {@code first} to {@code first + GROUP} exclusive.
+     */
+    private static int edges(CubieCube cube, int first)
+    {
+        int[] positions = new int[GROUP];
+        int flips = 0;
+
+        for(int i = 0; i < CubieCube.EDGES; ++i)
+        {
+            final int k = cube.getEdge(i) - first;
+            if(k >= 0 && k < GROUP)
+            {
+                positions[k] = i;
+                flips |= cube.getEdgeOrientation(i) << k;
+            }
+        }
+
+        return rank(positions) << GROUP | flips;
+    }
+
+    /**
+     * Gets the placement of a group of edges in their solved positions.
+     *
+     * @param   first   Position of the first edge.
+     *
+     * @return          Placement of the group.
+     */
+    private static int placement(int first)
+    {
+        int[] positions = new int[GROUP];
+        for(int k = 0; k < GROUP; ++k)
+        {
+            positions[k] = first + k;
+        }
+
+        return rank(positions);
+    }
+
+    /**
+     * Ranks the distinct positions of a group of edges.
+     *
+     * @param   positions   Position of every edge of the group.
+     *
+     * @return              Placement from 0 to {@link #PLACEMENTS} exclusive.
+     */
+    private static int rank(int[] positions)
+    {
+        int rank = 0, used = 0;
+        for(int k = 0; k < GROUP; ++k)
+        {
+            final int digit = positions[k] - Integer.bitCount(used & (1 << positions[k]) - 1);
+
+            rank = rank * (CubieCube.EDGES - k) + digit;
+            used |= 1 << positions[k];
+        }
+
+        return rank;
+    }
+
+    /**
+     * Unranks the positions of a group of edges.
+     *
+     * @param   rank        Placement from 0 to {@link #PLACEMENTS} exclusive.
+     * @param   positions   Receives the position of every edge of the group.
+     */
+    private static void unrank(int rank, int[] positions)
+    {
+        int[] digits = new int[GROUP];
+        for(int k = GROUP - 1; k >= 0; --k)
+        {
+            digits[k] = rank % (CubieCube.EDGES - k);
+            rank /= CubieCube.EDGES - k;
+        }
+
+        int used = 0;
+        for(int k = 0; k < GROUP; ++k)
+        {
+            int position = -1;
+            for(int free = -1; free < digits[k]; )
+            {
+                if((used & 1 << ++position) == 0)
+                {
+                    ++free;
+                }
+            }
+
+            positions[k] = position;
+            used |= 1 << position;
+        }
+    }
+
+    public int getThreads() { return threads_; }
+}
@@ -0,0 +1,428 @@
+package qube.algorithm3x3;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Number of moves needed to solve every value of a coordinate, packed into four bits each.
+ *
+ * <p>Distances are lower bounds for the whole cube, so a search can skip any branch whose distance exceeds the moves
+ * it has left. Tables are built in parallel, and those too large to rebuild on every start can be saved to a file
+ * and mapped back into memory.</p>
+ */
+final class PruningTable
+{
+    static final int UNKNOWN = 0xF;
+
+    private static final int MAGIC = 0x51504442;   // "QPDB"
+    private static final int VERSION = 2;
+    private static final int HEADER = 16;
+    private static final int SAMPLES = 1 << 12;   // Values sampled to fingerprint a move model.
+
+    private final ByteBuffer entries_;
+    private final int size_;
+
+    private PruningTable(ByteBuffer entries, int size)
+    {
+        entries_ = entries;
+        size_ = size;
+    }
+
+    /**
+     * Builds a table breadth first from the solved value {@code 0}.
+     *
+     * @param   size    Number of values of the coordinate.
+     * @param   moves   Indices of the moves to search with.
+     * @param   next    Applies a move index to a value.
+     *
+     * @return          Table of distances.
+     */
+    static PruningTable build(int size, int[] moves, IntBinaryOperator next)
+    {
+        return build(size, 0, moves, next);
+    }
+
+    /**
+     * Builds a table breadth first on the common fork-join pool.
+     *
+     * <p>Each depth is one parallel pass over every value. Early passes expand the values found by the last one,
+     * later passes look for a neighbor found by the last one from each value left, which touches far fewer entries
+     * once most are known. That requires {@code moves} to hold the inverse of each of its moves.</p>
+     *
+     * @param   size    Number of values of the coordinate.
+     * @param   solved  Value of the solved state.
+     * @param   moves   Indices of the moves to search with.
+     * @param   next    Applies a move index to a value, safely from any thread.
+     *
+     * @return          Table of distances.
+     */
+    static PruningTable build(int size, int solved, int[] moves, IntBinaryOperator next)
+    {
+        AtomicIntegerArray entries = new AtomicIntegerArray((size + 7) / 8);
+        for(int i = 0; i < entries.length(); ++i)
+        {
+            entries.set(i, -1);
+        }
+
+        update(entries, solved, UNKNOWN, 0);
+
+        long done = 1;
+        for(int depth = 0; done < size && depth < UNKNOWN - 1; ++depth)
+        {
+            final long found = ForkJoinPool.commonPool().invoke(
+                    new Level(entries, moves, next, depth, done > size / 2, 0, size));
+
+            if(found == 0)
+            {
+                break;
+            }
+
+            done += found;
+        }
+
+        ByteBuffer packed = ByteBuffer.allocate(entries.length() * 4).order(ByteOrder.LITTLE_ENDIAN);
+        for(int i = 0; i < entries.length(); ++i)
+        {
+            packed.putInt(entries.get(i));
+        }
+
+        ((Buffer)packed).flip().limit((size + 1) / 2);
+        return new PruningTable(packed.slice(), size);
+    }
+
+    /**
+     * Sets the distance of a value if it still holds the expected one.
+     *
+     * @param   entries     Entries packed eight to an integer.
+     * @param   index       Value of the coordinate.
+     * @param   expected    Distance expected.
+     * @param   distance    Distance to set.
+     *
+     * @return              Whether the distance was set.
+     */
+    private static boolean update(AtomicIntegerArray entries, int index, int expected, int distance)
+    {
+        final int word = index >>> 3, shift = (index & 7) << 2;
+
+        while(true)
+        {
+            final int value = entries.get(word);
+            if((value >>> shift & 0xF) != expected)
+            {
+                return false;
+            }
+
+            if(entries.compareAndSet(word, value, value & ~(0xF << shift) | distance << shift))
+            {
+                return true;
+            }
+        }
+    }
+
+    private static int distance(AtomicIntegerArray entries, int index)
+    {
+        return entries.get(index >>> 3) >>> ((index & 7) << 2) & 0xF;
+    }
+
+    /**
+     * Finds the values at one more than a depth within a range, splitting the range among threads.
+     */
+    private static class Level extends RecursiveTask<Long>
+    {
+        private static final long serialVersionUID = 1L;
+        private static final int CHUNK = 1 << 14;
+
+        private final AtomicIntegerArray entries_;
+        private final int[] moves_;
+        private final IntBinaryOperator next_;
+        private final int depth_;
+        private final boolean backward_;
+        private final int start_;
+        private final int end_;
+
+        /**
+         * Constructs a pass.
+         *
+         * @param   entries     Entries packed eight to an integer.
+         * @param   moves       Indices of the moves to search with.
+         * @param   next        Applies a move index to a value.
+         * @param   depth       Depth found by the last pass.
+         * @param   backward    Whether to search from the values left instead of from the last ones found.
+         * @param   start       First value of the range.
+         * @param   end         Value after the range.
+         */
+        private Level(AtomicIntegerArray entries, int[] moves, IntBinaryOperator next, int depth, boolean backward,
+                int start, int end)
+        {
+            entries_ = entries;
+            moves_ = moves;
+            next_ = next;
+            depth_ = depth;
+            backward_ = backward;
+            start_ = start;
+            end_ = end;
+        }
+
+        @Override
+        protected Long compute()
+        {
+            if(end_ - start_ > CHUNK)
+            {
+                final int middle = (start_ + end_) >>> 1;
+
+                Level left = new Level(entries_, moves_, next_, depth_, backward_, start_, middle);
+                left.fork();
+
+                final long right = new Level(entries_, moves_, next_, depth_, backward_, middle, end_).compute();
+                return right + left.join();
+            }
+
+            long found = 0;
+            for(int i = start_; i < end_; ++i)
+            {
+                found += backward_ ? pull(i) : push(i);
+            }
+
+            return found;
+        }
+
+        /**
+         * Marks the unknown neighbors of a value at the last depth.
+         *
+         * @param   index   Value of the coordinate.
+         *
+         * @return          Number of values marked.
+         */
+        private int push(int index)
+        {
+            if(distance(entries_, index) != depth_)
+            {
+                return 0;
+            }
+
+            int found = 0;
+            for(int move : moves_)
+            {
+                if(update(entries_, next_.applyAsInt(index, move), UNKNOWN, depth_ + 1))
+                {
+                    ++found;
+                }
+            }
+
+            return found;
+        }
+
+        /**
+         * Marks an unknown value if one of its neighbors is at the last depth.
+         *
+         * @param   index   Value of the coordinate.
+         *
+         * @return          Number of values marked.
+         */
+        private int pull(int index)
+        {
+            if(distance(entries_, index) != UNKNOWN)
+            {
+                return 0;
+            }
+
+            for(int move : moves_)
+            {
+                if(distance(entries_, next_.applyAsInt(index, move)) == depth_)
+                {
+                    return update(entries_, index, UNKNOWN, depth_ + 1) ? 1 : 0;
+                }
+            }
+
+            return 0;
+        }
+    }
+
+    /**
+     * Maps a table saved to a file, building and saving it first if the file is missing or out of date.
+     *
+     * <p>Files start with a header holding the version of the format, the size of the table and a fingerprint of
+     * {@code next}, so tables saved by another version or with another move model are rebuilt.</p>
+     *
+     * @param   file    File holding the table.
+     * @param   size    Number of values of the coordinate.
+     * @param   solved  Value of the solved state.
+     * @param   moves   Indices of the moves to search with.
+     * @param   next    Applies a move index to a value.
+     *
+     * @return          Table read from the mapped file.
+     *
+     * @throws  IOException If the file cannot be read or written.
+     */
+    static PruningTable open(Path file, int size, int solved, int[] moves, IntBinaryOperator next) throws IOException
+    {
+        final int model = fingerprint(size, solved, moves, next);
+
+        PruningTable table = map(file, size, model);
+        if(table == null)
+        {
+            build(size, solved, moves, next).save(file, model);
+            table = map(file, size, model);
+        }
+
+        if(table == null)
+        {
+            throw new IllegalStateException("Unknown error occurred");
+        }
+
+        return table;
+    }
+
+    /**
+     * Fingerprints a move model from a sample of its moves.
+     *
+     * @param   size    Number of values of the coordinate.
+     * @param   solved  Value of the solved state.
+     * @param   moves   Indices of the moves to search with.
+     * @param   next    Applies a move index to a value.
+     *
+     * @return          Hash changing whenever the sampled moves do.
+     */
+    private static int fingerprint(int size, int solved, int[] moves, IntBinaryOperator next)
+    {
+        final int stride = Math.max(1, size / SAMPLES);
+
+        int hash = 31 * size + solved;
+        for(int i = 0; i < size; i += stride)
+        {
+            for(int move : moves)
+            {
+                hash = 31 * hash + next.applyAsInt(i, move);
+            }
+        }
+
+        return hash;
+    }
+
+    /**
+     * Maps a table saved to a file.
+     *
+     * @param   file    File holding the table.
+     * @param   size    Number of values of the coordinate.
+     * @param   model   Fingerprint of the move model.
+     *
+     * @return          Table, or {@code null} if the file is missing or holds something else.
+     *
+     * @throws  IOException If the file cannot be read.
+     */
+    private static PruningTable map(Path file, int size, int model) throws IOException
+    {
+        if(!Files.isRegularFile(file))
+        {
+            return null;
+        }
+
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            final long length = (size + 1) / 2;
+            if(channel.size() != HEADER + length)
+            {
+                return null;
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            while(header.hasRemaining())
+            {
+                if(channel.read(header) < 0)
+                {
+                    return null;
+                }
+            }
+
+            ((Buffer)header).flip();   // Java 8 has no ByteBuffer overloads of the Buffer methods.
+            if(header.getInt() != MAGIC || header.getInt() != VERSION || header.getInt() != size
+                    || header.getInt() != model)
+            {
+                return null;
+            }
+
+            MappedByteBuffer entries = channel.map(FileChannel.MapMode.READ_ONLY, HEADER, length);
+            return new PruningTable(entries, size);   // The mapping stays valid once the channel is closed.
+        }
+    }
+
+    /**
+     * Saves the table to a file, replacing it only once completely written.
+     *
+     * @param   file    File to write.
+     * @param   model   Fingerprint of the move model.
+     *
+     * @throws  IOException If the file cannot be written.
+     */
+    private void save(Path file, int model) throws IOException
+    {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+
+        try
+        {
+            try(FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE))
+            {
+                ByteBuffer header = ByteBuffer.allocate(HEADER);
+                header.putInt(MAGIC).putInt(VERSION).putInt(size_).putInt(model);
+                ((Buffer)header).flip();
+
+                ByteBuffer entries = entries_.duplicate();
+                ((Buffer)entries).clear();
+
+                while(header.hasRemaining())
+                {
+                    channel.write(header);
+                }
+
+                while(entries.hasRemaining())
+                {
+                    channel.write(entries);
+                }
+            }
+
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch(Throwable e)
+        {
+            try
+            {
+                Files.deleteIfExists(temporary);
+            }
+            catch(IOException suppressed)
+            {
+                e.addSuppressed(suppressed);
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the distance of a value.
+     *
+     * @param   index   Value of the coordinate.
+     *
+     * @return          Number of moves to solve it or {@link #UNKNOWN}.
+     */
+    int get(int index)
+    {
+        return entries_.get(index >> 1) >> ((index & 1) << 2) & 0xF;
+    }
+
+    int getSize() { return size_; }
+}
@@ -0,0 +1,153 @@
+package qube.algorithm3x3;
+
+import qube.Color;
+import qube.CubeSnapshot;
+import qube.LocationSpace;
+import qube.Side;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+/**
+ * Used to record every rotation made to a cube.
+ */
+public class RecordingCube implements ICube
+{
+    private final ICube cube_;
+    private final List<Move> moves_ = new ArrayList<>();
+
+    /**
+     * Constructs a recording of a cube.
+     *
+     * @param   cube    Cube to rotate and record.
+     */
+    public RecordingCube(ICube cube)
+    {
+        cube_ = cube;
+    }
+
+    @Override
+    public Future<Void> rotate(Side side, boolean ccw, int count, int offset)
+    {
+        record(new Move(side, ccw, count, offset));
+        return cube_.rotate(side, ccw, count, offset);
+    }
+
+    @Override
+    public void rotateNow(Side side, boolean ccw, int count, int offset)
+    {
+        record(new Move(side, ccw, count, offset));
+        cube_.rotateNow(side, ccw, count, offset);
+    }
+
+    @Override
+    public Future<Void> rotate(Move... moves)
+    {
+        record(moves);
+        return cube_.rotate(moves);
+    }
+
+    @Override
+    public void rotateNow(Move... moves)
+    {
+        record(moves);
+        cube_.rotateNow(moves);
+    }
+
+    @Override
+    public Future<LocationSpace> find(ISearch search)
+    {
+        return cube_.find(search);
+    }
+
+    @Override
+    public Future<List<LocationSpace>> findAll(ISearch search)
+    {
+        return cube_.findAll(search);
+    }
+
+    @Override
+    public Future<LocationSpace> find(SearchQuery query)
+    {
+        return cube_.find(query);
+    }
+
+    @Override
+    public Future<List<LocationSpace>> findAll(SearchQuery query)
+    {
+        return cube_.findAll(query);
+    }
+
+    @Override
+    public Color[] getEdgeStrip(Side side, Side edge)
+    {
+        return cube_.getEdgeStrip(side, edge);
+    }
+
+    @Override
+    public long getFingerprint()
+    {
+        return cube_.getFingerprint();
+    }
+
+    @Override
+    public CubeSnapshot snapshot()
+    {
+        return cube_.snapshot();
+    }
+
+    @Override
+    public IFace getFace(Side side)
+    {
+        return cube_.getFace(side);
+    }
+
+    @Override
+    public boolean isComplete()
+    {
+        return cube_.isComplete();
+    }
+
+    /**
+     * Records moves in order.
+     *
+     * @param   moves   Moves made.
+     */
+    private void record(Move... moves)
+    {
+        synchronized(moves_)
+        {
+            for(Move move : moves)
+            {
+                moves_.add(move);
+            }
+        }
+    }
+
+    /**
+     * Gets every move made so far.
+     *
+     * @return  Moves in the order they were made.
+     */
+    public Move[] getMoves()
+    {
+        synchronized(moves_)
+        {
+            return moves_.toArray(new Move[0]);
+        }
+    }
+
+    /**
+     * Gets the number of moves made so far.
+     *
+     * @return  Number of moves recorded.
+     */
+    public int getMoveCount()
+    {
+        synchronized(moves_)
+        {
+            return moves_.size();
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package qube.algorithm3x3;
+
+import qube.Color;
+import qube.LocationSpace;
+import qube.Side;
+
+/**
+ * Search made of constraints a cube can plan around, with an {@link ISearch} for anything else.
+ *
+ * <p>Constraints are held as bitmasks by ordinal. Neighbors are the other stickers of the same edge or corner, as
+ * found by {@link LocationSpace#flipEdge()} and {@link LocationSpace#rotateCorner()}; centers have none.</p>
+ */
+public final class SearchQuery
+{
+    private static final int ALL = -1;
+
+    private final int sides_;
+    private final int minors_;
+    private final int colors_;
+    private final int neighborColors_;
+    private final int forbiddenNeighborColors_;
+    private final ISearch residual_;
+
+    public static class Factory
+    {
+        private int sides_ = ALL;
+        private int minors_ = ALL;
+        private int colors_ = ALL;
+        private int neighborColors_ = 0;
+        private int forbiddenNeighborColors_ = 0;
+        private ISearch residual_ = (side, location, color) -> true;
+
+        private Factory() {}
+
+        /**
+         * Only matches locations on the given sides.
+         *
+         * @param   sides   Sides to search.
+         *
+         * @return          This factory.
+         */
+        public Factory on(Side... sides)
+        {
+            sides_ &= mask(sides);
+            return this;
+        }
+
+        /**
+         * Skips locations on the given sides.
+         *
+         * @param   sides   Sides to skip.
+         *
+         * @return          This factory.
+         */
+        public Factory notOn(Side... sides)
+        {
+            sides_ &= ~mask(sides);
+            return this;
+        }
+
+        /**
+         * Only matches one kind of location.
+         *
+         * @param   minor   Kind of location to search.
+         *
+         * @return          This factory.
+         */
+        public Factory minor(Location.Minor minor)
+        {
+            minors_ &= 1 << minor.ordinal();
+            return this;
+        }
+
+        /**
+         * Only matches locations holding one of the given colors.
+         *
+         * @param   colors  Colors to search for.
+         *
+         * @return          This factory.
+         */
+        public Factory color(Color... colors)
+        {
+            colors_ &= mask(colors);
+            return this;
+        }
+
+        /**
+         * Skips locations holding any of the given colors.
+         *
+         * @param   colors  Colors to skip.
+         *
+         * @return          This factory.
+         */
+        public Factory notColor(Color... colors)
+        {
+            colors_ &= ~mask(colors);
+            return this;
+        }
+
+        /**
+         * Only matches locations with a neighbor holding one of the given colors.
+         *
+         * @param   colors  Colors a neighbor must hold.
+         *
+         * @return          This factory.
+         */
+        public Factory withNeighbor(Color... colors)
+        {
+            neighborColors_ |= mask(colors);
+            return this;
+        }
+
+        /**
+         * Skips locations with a neighbor holding any of the given colors.
+         *
+         * @param   colors  Colors no neighbor may hold.
+         *
+         * @return          This factory.
+         */
+        public Factory withoutNeighbor(Color... colors)
+        {
+            forbiddenNeighborColors_ |= mask(colors);
+            return this;
+        }
+
+        /**
+         * Adds conditions the other constraints cannot express.
+         *
+         * @param   search  Conditions tested on locations passing every other constraint.
+         *
+         * @return          This factory.
+         */
+        public Factory where(ISearch search)
+        {
+            ISearch previous = residual_;
+            residual_ = (side, location, color) -> previous.test(side, location, color)
+                    && search.test(side, location, color);
+
+            return this;
+        }
+
+        /**
+         * Creates a {@link SearchQuery} from configured values.
+         *
+         * @return  Constructed and configured {@link SearchQuery}.
+         */
+        public SearchQuery build()
+        {
+            return new SearchQuery(this);
+        }
+    }
+
+    /**
+     * Starts a query matching every location.
+     *
+     * @return  Factory to constrain the query with.
+     */
+    public static Factory select()
+    {
+        return new Factory();
+    }
+
+    private SearchQuery(Factory factory)
+    {
+        sides_ = factory.sides_;
+        minors_ = factory.minors_;
+        colors_ = factory.colors_;
+        neighborColors_ = factory.neighborColors_;
+        forbiddenNeighborColors_ = factory.forbiddenNeighborColors_;
+        residual_ = factory.residual_;
+    }
+
+    /**
+     * Builds a bitmask of ordinals.
+     *
+     * @param   values  Values to include.
+     *
+     * @return          Bitmask.
+     */
+    private static int mask(Enum<?>... values)
+    {
+        int mask = 0;
+        for(Enum<?> value : values)
+        {
+            mask |= 1 << value.ordinal();
+        }
+
+        return mask;
+    }
+
+    /**
+     * Gets the neighbors of a location.
+     *
+     * @param   side        Side of the location.
+     * @param   location    Location on the side.
+     *
+     * @return              Other locations of the same edge or corner.
+     */
+    public static LocationSpace[] getNeighbors(Side side, Location location)
+    {
+        LocationSpace space = new LocationSpace(side, location, null);
+
+        switch(location.getMinor())
+        {
+        case EDGE: return new LocationSpace[] { space.flipEdge() };
+        case CORNER: return new LocationSpace[] { space.rotateCorner(), space.rotateCorner().rotateCorner() };
+        default: return new LocationSpace[0];
+        }
+    }
+
+    /**
+     * Tests whether a location matches the query.
+     *
+     * @param   cube        Cube the location is on, to read neighbors from.
+     * @param   side        Side of the cube.
+     * @param   location    Location on the side.
+     * @param   color       Color at the location.
+     *
+     * @return              Whether this is part of the query.
+     */
+    public boolean test(IReadOnlyCube cube, Side side, Location location, Color color)
+    {
+        if((sides_ & 1 << side.ordinal()) == 0 || (minors_ & 1 << location.getMinor().ordinal()) == 0
+                || (colors_ & 1 << color.ordinal()) == 0)
+        {
+            return false;
+        }
+
+        if(neighborColors_ != 0 || forbiddenNeighborColors_ != 0)
+        {
+            int neighbors = 0;
+            for(LocationSpace neighbor : getNeighbors(side, location))
+            {
+                neighbors |= 1 << neighbor.determineColor(cube).ordinal();
+            }
+
+            if((neighborColors_ != 0 && (neighbors & neighborColors_) == 0)
+                    || (neighbors & forbiddenNeighborColors_) != 0)
+            {
+                return false;
+            }
+        }
+
+        return residual_.test(side, location, color);
+    }
+
+    /**
+     * Tests only the conditions no index can answer.
+     *
+     * @param   side        Side of the cube.
+     * @param   location    Location on the side.
+     * @param   color       Color at the location.
+     *
+     * @return              Whether the residual conditions hold.
+     */
+    public boolean testResidual(Side side, Location location, Color color)
+    {
+        return residual_.test(side, location, color);
+    }
+
+    /**
+     * Bitmask of side ordinals that may match.
+     */
+    public int getSides() { return sides_; }
+
+    /**
+     * Bitmask of {@link Location.Minor} ordinals that may match.
+     */
+    public int getMinors() { return minors_; }
+
+    /**
+     * Bitmask of color ordinals that may match.
+     */
+    public int getColors() { return colors_; }
+
+    /**
+     * Bitmask of color ordinals a neighbor must hold one of, or {@code 0} for no constraint.
+     */
+    public int getNeighborColors() { return neighborColors_; }
+
+    /**
+     * Bitmask of color ordinals no neighbor may hold.
+     */
+    public int getForbiddenNeighborColors() { return forbiddenNeighborColors_; }
+}
@@ -1,6 +1,7 @@
 package qube.algorithm3x3;
 
 import qube.Color;
+import qube.CubeSnapshot;
 import qube.LocationSpace;
 import qube.Side;
 
@@ -94,6 +95,24 @@ public class SideRemappedCube implements ICube
         return cube_.rotate(getRemappedSide(side), ccw, count, offset);
     }
 
+    @Override
+    public void rotateNow(Side side, boolean ccw, int count, int offset)
+    {
+        cube_.rotateNow(getRemappedSide(side), ccw, count, offset);
+    }
+
+    @Override
+    public Future<Void> rotate(Move... moves)
+    {
+        return cube_.rotate(remap(moves));
+    }
+
+    @Override
+    public void rotateNow(Move... moves)
+    {
+        cube_.rotateNow(remap(moves));
+    }
+
     @Override
     public Future<LocationSpace> find(ISearch search)
     {
@@ -106,12 +125,36 @@ public class SideRemappedCube implements ICube
         return cube_.findAll(search);
     }
 
+    @Override
+    public Future<LocationSpace> find(SearchQuery query)
+    {
+        return cube_.find(query);
+    }
+
+    @Override
+    public Future<List<LocationSpace>> findAll(SearchQuery query)
+    {
+        return cube_.findAll(query);
+    }
+
     @Override
     public Color[] getEdgeStrip(Side side, Side edge)
     {
         return cube_.getEdgeStrip(getRemappedSide(side), edge);
     }
 
+    @Override
+    public long getFingerprint()
+    {
+        return cube_.getFingerprint();
+    }
+
+    @Override
+    public CubeSnapshot snapshot()
+    {
+        return cube_.snapshot();
+    }
+
     @Override
     public IFace getFace(Side side)
     {
@@ -124,6 +167,25 @@ public class SideRemappedCube implements ICube
         return cube_.isComplete();
     }
 
+    /**
+     * Remaps the sides of moves.
+     *
+     * @param   moves   Relative moves.
+     *
+     * @return          Remapped moves.
+     */
+    private Move[] remap(Move[] moves)
+    {
+        Move[] remapped = new Move[moves.length];
+        for(int i = 0; i < moves.length; ++i)
+        {
+            Move move = moves[i];
+            remapped[i] = new Move(getRemappedSide(move.getSide()), move.isCcw(), move.getCount(), move.getOffset());
+        }
+
+        return remapped;
+    }
+
     /**
      * Gets the side remapped from {@code side}.
      *
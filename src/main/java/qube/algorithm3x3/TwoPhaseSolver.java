@@ -0,0 +1,385 @@
+package qube.algorithm3x3;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solves a 3x3 cube in few moves with Kociemba's two-phase algorithm.
+ *
+ * <p>Phase one brings the cube into the group generated by turns of the up and down sides and half turns of the
+ * others, where every cubie is oriented and the slice edges are in the slice. Phase two solves the cube using only
+ * those moves. Longer and longer phase one solutions are each followed by the shortest phase two until the solution
+ * is short enough or time runs out, keeping the shortest found.</p>
+ *
+ * <p>Tables are built once, the first time a solver is created. A solver holds no search state, so one can be
+ * shared between threads.</p>
+ */
+public class TwoPhaseSolver
+{
+    private static final int MAX_PHASE1 = 12;
+    private static final int MAX_PHASE2 = 18;
+    private static final int CHECK_INTERVAL = 0xFFF;   // Nodes between checks of the clock.
+
+    private static final int[] MOVES = new int[CubieCube.MOVES];
+    private static final int[] PHASE2_MOVES = { 0 * 3 + 1, 1 * 3 + 1, 2 * 3, 2 * 3 + 1, 2 * 3 + 2, 3 * 3, 3 * 3 + 1,
+            3 * 3 + 2, 4 * 3 + 1, 5 * 3 + 1 };   // F2, B2, U, U2, U', D, D2, D', R2 and L2.
+
+    private static Tables shared_;
+
+    static
+    {
+        for(int i = 0; i < MOVES.length; ++i)
+        {
+            MOVES[i] = i;
+        }
+    }
+
+    private final Tables tables_;
+    private final int targetLength_;
+    private final long timeout_;
+
+    /**
+     * Constructs a solver.
+     *
+     * @param   targetLength    Number of moves short enough to stop searching at.
+     * @param   timeout         Time to keep looking for a solution of {@code targetLength}.
+     * @param   unit            Unit of {@code timeout}.
+     */
+    public TwoPhaseSolver(int targetLength, long timeout, TimeUnit unit)
+    {
+        targetLength_ = targetLength;
+        timeout_ = unit.toNanos(timeout);
+        tables_ = loadTables();
+    }
+
+    /**
+     * Constructs a solver stopping at 21 moves or after 100 milliseconds.
+     */
+    public TwoPhaseSolver()
+    {
+        this(21, 100, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Finds a solution to the current state of a cube.
+     *
+     * <p>Returns the shortest solution found once one of {@code targetLength} moves or fewer is found or the time
+     * runs out. If the time runs out before any solution is found, returns the first one found after.</p>
+     *
+     * @param   cube    3x3 cube to solve.
+     *
+     * @return          Moves solving the cube, ready for {@link ICube#rotate(Move...)}.
+     *
+     * @throws  IllegalArgumentException    If the cube is not a solvable 3x3.
+     */
+    public Move[] solve(IReadOnlyCube cube)
+    {
+        if(cube.snapshot().getDimensions() != 3)
+        {
+            throw new IllegalArgumentException("Only 3x3 cubes can be solved");
+        }
+
+        return solve(CubieCube.fromCube(cube));
+    }
+
+    /**
+     * Finds a solution to a cubie state.
+     *
+     * @param   cube    State to solve.
+     *
+     * @return          Moves solving the state.
+     *
+     * @throws  IllegalArgumentException    If the state is not solvable.
+     *
+     * @see     #solve(IReadOnlyCube)
+     */
+    public Move[] solve(CubieCube cube)
+    {
+        if(!cube.isSolvable())
+        {
+            throw new IllegalArgumentException("Cube is not solvable");
+        }
+
+        return new Search(cube).run();
+    }
+
+    /**
+     * Gets the pruning tables, building them the first time.
+     *
+     * <p>Not done while initializing the class, as the threads building the tables call back into it.</p>
+     *
+     * @return  Tables shared by every solver.
+     */
+    private static synchronized Tables loadTables()
+    {
+        if(shared_ == null)
+        {
+            shared_ = new Tables();
+        }
+
+        return shared_;
+    }
+
+    /**
+     * Tests whether a move belongs to phase two.
+     *
+     * @param   move    Move index.
+     *
+     * @return          Whether the move keeps the cube in the phase two group.
+     */
+    private static boolean isPhase2(int move)
+    {
+        for(int phase2 : PHASE2_MOVES)
+        {
+            if(phase2 == move)
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Pruning tables of both phases.
+     */
+    private static class Tables
+    {
+        private final PruningTable twistSlice_;
+        private final PruningTable flipSlice_;
+        private final PruningTable cornerSlice_;
+        private final PruningTable edgeSlice_;
+
+        private Tables()
+        {
+            final int slices = CubieCube.SLICES / CubieCube.SLICE_PERMUTATIONS;
+            final int permutations = CubieCube.SLICE_PERMUTATIONS;
+
+            twistSlice_ = PruningTable.build(CubieCube.TWISTS * slices, MOVES, (i, move) ->
+                    CoordinateTables.slice(i / CubieCube.TWISTS * permutations, move) / permutations * CubieCube.TWISTS
+                            + CoordinateTables.twist(i % CubieCube.TWISTS, move));
+
+            flipSlice_ = PruningTable.build(CubieCube.FLIPS * slices, MOVES, (i, move) ->
+                    CoordinateTables.slice(i / CubieCube.FLIPS * permutations, move) / permutations * CubieCube.FLIPS
+                            + CoordinateTables.flip(i % CubieCube.FLIPS, move));
+
+            cornerSlice_ = PruningTable.build(CubieCube.CORNER_PERMUTATIONS * permutations, PHASE2_MOVES, (i, move) ->
+                    CoordinateTables.cornerPermutation(i / permutations, move) * permutations
+                            + CoordinateTables.slice(i % permutations, move));
+
+            edgeSlice_ = PruningTable.build(CubieCube.UD_EDGE_PERMUTATIONS * permutations, PHASE2_MOVES, (i, move) ->
+                    CoordinateTables.udEdgePermutation(i / permutations, move) * permutations
+                            + CoordinateTables.slice(i % permutations, move));
+        }
+    }
+
+    /**
+     * State of a single solve.
+     */
+    private class Search
+    {
+        private final CubieCube cube_;
+        private final long deadline_;
+
+        private final int[] moves_ = new int[MAX_PHASE1 + MAX_PHASE2];
+        private final int[] twist_ = new int[MAX_PHASE1 + 1];
+        private final int[] flip_ = new int[MAX_PHASE1 + 1];
+        private final int[] slice_ = new int[MAX_PHASE1 + 1];
+        private final int[] corners_ = new int[MAX_PHASE1 + 1];
+
+        private int[] best_;
+        private int nodes_;
+        private boolean done_;
+
+        private Search(CubieCube cube)
+        {
+            cube_ = cube;
+            deadline_ = System.nanoTime() + timeout_;
+
+            twist_[0] = cube.getTwist();
+            flip_[0] = cube.getFlip();
+            slice_[0] = cube.getSlice();
+            corners_[0] = cube.getCornerPermutation();
+        }
+
+        /**
+         * Searches phase one solutions of increasing length.
+         *
+         * @return  Shortest solution found.
+         */
+        private Move[] run()
+        {
+            for(int depth = 0; depth <= MAX_PHASE1 && !done_; ++depth)
+            {
+                if(best_ != null && depth >= best_.length)
+                {
+                    break;
+                }
+
+                phase1(0, depth);
+            }
+
+            if(best_ == null)
+            {
+                throw new IllegalStateException("Unknown error occurred");
+            }
+
+            Move[] solution = new Move[best_.length];
+            for(int i = 0; i < solution.length; ++i)
+            {
+                solution[i] = CubieCube.toMove(best_[i]);
+            }
+
+            return solution;
+        }
+
+        /**
+         * Searches phase one.
+         *
+         * @param   depth       Number of moves made.
+         * @param   remaining   Number of moves left to reach the phase two group.
+         */
+        private void phase1(int depth, int remaining)
+        {
+            if(remaining == 0)
+            {
+                if(twist_[depth] == 0 && flip_[depth] == 0 && slice_[depth] < CubieCube.SLICE_PERMUTATIONS
+                        && (depth == 0 || !isPhase2(moves_[depth - 1])))   // Otherwise a shorter phase one exists.
+                {
+                    startPhase2(depth);
+                }
+
+                return;
+            }
+
+            if((++nodes_ & CHECK_INTERVAL) == 0 && best_ != null && System.nanoTime() > deadline_)
+            {
+                done_ = true;
+            }
+
+            final int last = depth == 0 ? -1 : moves_[depth - 1];
+
+            for(int move = 0; move < CubieCube.MOVES && !done_; ++move)
+            {
+                if(CubieCube.isRedundant(last, move))
+                {
+                    continue;
+                }
+
+                final int twist = CoordinateTables.twist(twist_[depth], move);
+                final int flip = CoordinateTables.flip(flip_[depth], move);
+                final int slice = CoordinateTables.slice(slice_[depth], move);
+                final int combination = slice / CubieCube.SLICE_PERMUTATIONS;
+
+                if(Math.max(tables_.twistSlice_.get(combination * CubieCube.TWISTS + twist),
+                        tables_.flipSlice_.get(combination * CubieCube.FLIPS + flip)) >= remaining)
+                {
+                    continue;
+                }
+
+                moves_[depth] = move;
+                twist_[depth + 1] = twist;
+                flip_[depth + 1] = flip;
+                slice_[depth + 1] = slice;
+                corners_[depth + 1] = CoordinateTables.cornerPermutation(corners_[depth], move);
+
+                phase1(depth + 1, remaining - 1);
+            }
+        }
+
+        /**
+         * Searches the shortest phase two following a phase one solution.
+         *
+         * @param   depth   Length of the phase one solution.
+         */
+        private void startPhase2(int depth)
+        {
+            CubieCube cube = new CubieCube(cube_);
+            for(int i = 0; i < depth; ++i)
+            {
+                cube.move(moves_[i]);
+            }
+
+            final int corners = corners_[depth];
+            final int edges = cube.getUDEdgePermutation();
+            final int slice = slice_[depth];
+
+            final int longest = best_ == null ? MAX_PHASE1 + MAX_PHASE2 : best_.length - 1;
+            final int limit = Math.min(MAX_PHASE2, longest - depth);
+            final int bound = prune2(corners, edges, slice);
+
+            for(int length = bound; length <= limit; ++length)
+            {
+                if(phase2(corners, edges, slice, depth, length))
+                {
+                    best_ = new int[depth + length];
+                    System.arraycopy(moves_, 0, best_, 0, best_.length);
+
+                    done_ = best_.length <= targetLength_ || System.nanoTime() > deadline_;
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Searches phase two.
+         *
+         * @param   corners     Corner permutation.
+         * @param   edges       Up and down edge permutation.
+         * @param   slice       Slice coordinate.
+         * @param   depth       Number of moves made, including phase one.
+         * @param   remaining   Number of moves left to solve the cube.
+         *
+         * @return              Whether the cube was solved.
+         */
+        private boolean phase2(int corners, int edges, int slice, int depth, int remaining)
+        {
+            if(remaining == 0)
+            {
+                return corners == 0 && edges == 0 && slice == 0;
+            }
+
+            final int last = depth == 0 ? -1 : moves_[depth - 1];
+
+            for(int move : PHASE2_MOVES)
+            {
+                if(CubieCube.isRedundant(last, move))
+                {
+                    continue;
+                }
+
+                final int nextCorners = CoordinateTables.cornerPermutation(corners, move);
+                final int nextEdges = CoordinateTables.udEdgePermutation(edges, move);
+                final int nextSlice = CoordinateTables.slice(slice, move);
+
+                if(prune2(nextCorners, nextEdges, nextSlice) >= remaining)
+                {
+                    continue;
+                }
+
+                moves_[depth] = move;
+
+                if(phase2(nextCorners, nextEdges, nextSlice, depth + 1, remaining - 1))
+                {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        /**
+         * Gets a lower bound of the phase two moves left.
+         *
+         * @param   corners Corner permutation.
+         * @param   edges   Up and down edge permutation.
+         * @param   slice   Slice coordinate.
+         *
+         * @return          Lower bound of moves to solve the cube.
+         */
+        private int prune2(int corners, int edges, int slice)
+        {
+            return Math.max(tables_.cornerSlice_.get(corners * CubieCube.SLICE_PERMUTATIONS + slice),
+                    tables_.edgeSlice_.get(edges * CubieCube.SLICE_PERMUTATIONS + slice));
+        }
+    }
+}